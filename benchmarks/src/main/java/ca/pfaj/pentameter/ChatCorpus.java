@@ -0,0 +1,114 @@
+package ca.pfaj.pentameter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic chat messages and a synthetic CMU Pronouncing Dictionary for the benchmarks, so they can run without
+ * downloading anything. The results are the same for the same seed.
+ */
+final class ChatCorpus {
+    // words that turn up in chat, with pronounciations in the dictionary's format
+    static final String[] VOCABULARY = {
+            "A  AH0", "AND  AH0 N D", "ANYONE  EH1 N IY0 W AH2 N", "BASE  B EY1 S", "COMPARE  K AH0 M P EH1 R",
+            "DAY  D EY1", "DIAMOND  D AY1 M AH0 N D", "GOOD  G UH1 D", "HAVE  HH AE1 V", "HELLO  HH AH0 L OW1",
+            "HELLO(1)  HH EH0 L OW1", "I  AY1", "IS  IH1 Z", "LOVELY  L AH1 V L IY0", "MINE  M AY1 N",
+            "MORNING  M AO1 R N IH0 NG", "NETHER  N EH1 DH ER0", "PORTAL  P AO1 R T AH0 L", "SHALL  SH AE1 L",
+            "SUMMER'S  S AH1 M ER0 Z", "SUMMERS  S AH1 M ER0 Z", "SWORD  S AO1 R D", "TEMPERATE  T EH1 M P ER0 AH0 T",
+            "THE  DH AH0", "THEE  DH IY1", "THOU  DH AW1", "TO  T UW1", "TRADE  T R EY1 D", "VILLAGE  V IH1 L AH0 JH",
+            "WHERE  W EH1 R", "WHO  HH UW1", "WITH  W IH1 DH", "WORLD  W ER1 L D", "YOU  Y UW1",
+    };
+    static final String[] LINES = {
+            "Shall I compare thee to a summer's day?",
+            "Thou art more lovely and more temperate",
+            "hello world",
+            "anyone have a diamond sword to trade",
+            "where is the nether portal",
+            "good morning village",
+            "lol",
+    };
+
+    private ChatCorpus() {
+    }
+
+    /**
+     * Make chat messages: mostly lines people actually send, some made of random known and unknown words
+     * @param count how many messages
+     * @param seed the random seed
+     * @return the messages
+     */
+    static List<String> messages(int count, long seed) {
+        var random = new Random(seed);
+        var messages = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            if (random.nextBoolean()) {
+                messages.add(LINES[random.nextInt(LINES.length)]);
+            } else {
+                var message = new StringBuilder();
+                int words = 1 + random.nextInt(15);
+                for (int j = 0; j < words; j++) {
+                    if (j > 0) {
+                        message.append(random.nextInt(10) == 0 ? '-' : ' ');
+                    }
+                    if (random.nextInt(4) == 0) {
+                        message.append(randomWord(random));
+                    } else {
+                        var entry = VOCABULARY[random.nextInt(VOCABULARY.length)];
+                        message.append(entry, 0, entry.indexOf(' ')).append(random.nextInt(5) == 0 ? "!" : "");
+                    }
+                }
+                messages.add(message.toString().toLowerCase());
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Make the worst case for scansion: a line of one-syllable words, each of which can be stressed or not
+     * @param words how many words
+     * @return the line
+     */
+    static String worstCase(int words) {
+        return String.join(" ", java.util.Collections.nCopies(words, "a"));
+    }
+
+    /**
+     * Write a dictionary in the CMU Pronouncing Dictionary's format: the vocabulary plus random words
+     * @param path where to write it
+     * @param words roughly how many words
+     * @param seed the random seed
+     * @throws IOException if the dictionary can't be written
+     */
+    static void writeDictionary(Path path, int words, long seed) throws IOException {
+        var random = new Random(seed);
+        String[] vowels = {"AA", "AE", "AH", "AO", "EH", "ER", "IH", "IY", "OW", "UW"};
+        String[] consonants = {"B", "D", "K", "L", "M", "N", "P", "R", "S", "T"};
+        var lines = new ArrayList<String>(words + VOCABULARY.length + 1);
+        lines.add(";;; synthetic dictionary for benchmarks");
+        lines.addAll(List.of(VOCABULARY));
+        for (int i = 0; i < words; i++) {
+            var line = new StringBuilder(randomWord(random).toUpperCase()).append(' ');
+            int syllables = 1 + random.nextInt(4);
+            for (int j = 0; j < syllables; j++) {
+                line.append(' ').append(consonants[random.nextInt(consonants.length)])
+                        .append(' ').append(vowels[random.nextInt(vowels.length)]).append(random.nextInt(3));
+            }
+            lines.add(line.toString());
+        }
+        Files.write(path, lines, StandardCharsets.ISO_8859_1);
+    }
+
+    static String randomWord(Random random) {
+        var word = new StringBuilder();
+        int length = 3 + random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+}
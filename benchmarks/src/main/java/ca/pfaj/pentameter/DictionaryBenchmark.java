@@ -0,0 +1,104 @@
+package ca.pfaj.pentameter;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks loading the dictionary and looking words up in it. Uses a synthetic dictionary unless the dictionary
+ * parameter gives the path to a real one (-p dictionary=/path/to/cmudict-0.7b).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DictionaryBenchmark {
+    @Param("")
+    public String dictionary;
+
+    Path source;
+    Path snapshot;
+    long checksum;
+    HashDictionary parsed;
+    TrieDictionary trie;
+    MappedDictionary mapped;
+    List<String> words;
+    int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        var directory = Files.createTempDirectory("pentameter");
+        if (dictionary.isEmpty()) {
+            source = directory.resolve("cmudict-0.7b");
+            ChatCorpus.writeDictionary(source, 130_000, 42);
+        } else {
+            source = Path.of(dictionary);
+        }
+        snapshot = directory.resolve("cmudict-0.7b.bin");
+        checksum = MappedDictionary.checksum(source);
+        parsed = CmuParser.parse(source);
+        trie = TrieDictionary.copyOf(parsed);
+        MappedDictionary.write(snapshot, parsed, checksum);
+        mapped = MappedDictionary.open(snapshot, checksum).orElseThrow();
+        // look up the words chat uses, known and unknown
+        words = ChatCorpus.messages(1_000, 42).stream()
+                .flatMap(message -> Phrase.parseWords(message, parsed).stream())
+                .map(word -> Dictionary.cleanWord(word.name()))
+                .filter(word -> !word.isEmpty())
+                .toList();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public HashDictionary parse() throws IOException {
+        return CmuParser.parse(source);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public TrieDictionary buildTrie() {
+        return TrieDictionary.copyOf(parsed);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MappedDictionary openSnapshot() throws IOException {
+        return MappedDictionary.open(snapshot, MappedDictionary.checksum(source)).orElseThrow();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void lookupHash(Blackhole blackhole) {
+        blackhole.consume(parsed.get(nextWord()));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void lookupMapped(Blackhole blackhole) {
+        blackhole.consume(mapped.get(nextWord()));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void lookupTrie(Blackhole blackhole) {
+        blackhole.consume(trie.get(nextWord()));
+    }
+
+    // unknown words are split into compounds where possible
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void lookupTrieCompound(Blackhole blackhole) {
+        blackhole.consume(trie.lookup(nextWord()));
+    }
+
+    String nextWord() {
+        next = (next + 1) % words.size();
+        return words.get(next);
+    }
+}
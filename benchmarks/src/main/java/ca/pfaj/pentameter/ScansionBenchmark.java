@@ -0,0 +1,85 @@
+package ca.pfaj.pentameter;
+
+import net.md_5.bungee.api.chat.BaseComponent;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the stages a chat message goes through: splitting it into words, scanning it, and colouring it.
+ * The chat corpus is a mix of ordinary synthetic messages; the worst case is a line of one-syllable words.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScansionBenchmark {
+    // number of words in the worst-case line; the exhaustive search doubles with each one
+    @Param({"8", "16"})
+    public int worstCaseWords;
+
+    Dictionary dictionary;
+    List<String> messages;
+    List<List<Word>> parsed;
+    String worstCase;
+    List<Word> worstCaseParsed;
+    int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        var source = Files.createTempFile("cmudict", null);
+        ChatCorpus.writeDictionary(source, 130_000, 42);
+        dictionary = TrieDictionary.copyOf(CmuParser.parse(source));
+        Files.delete(source);
+        messages = ChatCorpus.messages(1_000, 42);
+        parsed = messages.stream().map(message -> Phrase.parseWords(message, dictionary)).toList();
+        worstCase = ChatCorpus.worstCase(worstCaseWords);
+        worstCaseParsed = Phrase.parseWords(worstCase, dictionary);
+    }
+
+    int nextMessage() {
+        next = (next + 1) % messages.size();
+        return next;
+    }
+
+    @Benchmark
+    public List<Word> parseWords() {
+        return Phrase.parseWords(messages.get(nextMessage()), dictionary);
+    }
+
+    @Benchmark
+    public Scansion scan() {
+        return new Phrase(parsed.get(nextMessage()), dictionary).scansion();
+    }
+
+    @Benchmark
+    public Scansion scanWorstCase() {
+        return new Phrase(worstCaseParsed, dictionary).scansion();
+    }
+
+    @Benchmark
+    public Set<PronouncedPhrase> uniqueProunounciationsWorstCase() {
+        return new Phrase(worstCaseParsed, dictionary).uniqueProunounciations();
+    }
+
+    @Benchmark
+    public BaseComponent[] colour() {
+        return new Phrase(parsed.get(nextMessage()), dictionary).scansion().colour();
+    }
+
+    @Benchmark
+    public BaseComponent[] colourWorstCase() {
+        return new Phrase(worstCaseParsed, dictionary).scansion().colour();
+    }
+
+    @Benchmark
+    public BaseComponent[] endToEnd() {
+        return new Phrase(messages.get(nextMessage()), dictionary).colour();
+    }
+}
@@ -0,0 +1,191 @@
+package ca.pfaj.pentameter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Scans every line of a text file, such as a play or an export of chat logs, and writes how each line scans to a
+ * tab-separated file: the line number, the meter it fits best, the number of syllables that don't fit, the chosen
+ * stresses ('/' for stressed and 'x' for unstressed, with a space between words), and whether it was scanned fully.
+ * <p>
+ * The file is read a batch of lines at a time, and the batches are scanned in parallel on the common fork-join pool.
+ * Only a few batches are held at once, so files far bigger than the heap can be scanned, and the results are written
+ * in the same order as the lines.
+ * <p>
+ * Usage: {@code java -jar pentameter-cli.jar <cmudict> <input> [output]}; the dictionary can be its text or the
+ * plugin's compressed copy of it, and the output defaults to the input with {@value #OUTPUT_SUFFIX} on the end.
+ */
+public final class ScanCorpus {
+    static final int BATCH_SIZE = 4096;
+    static final String OUTPUT_SUFFIX = ".scansion.tsv";
+    static final String SNAPSHOT_SUFFIX = ".bin";
+    // how often to report progress
+    static final long PROGRESS_NANOS = 5_000_000_000L;
+
+    private final Analyser analyser;
+    private final long start = System.nanoTime();
+    private long linesWritten;
+    private long lastProgress = start;
+
+    /**
+     * @param analyser the analyser to scan each line with; shared by every thread
+     */
+    ScanCorpus(Analyser analyser) {
+        this.analyser = analyser;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("usage: java -jar pentameter-cli.jar <cmudict> <input> [output]");
+            System.exit(2);
+        }
+        var input = Path.of(args[1]);
+        var output = args.length == 3 ? Path.of(args[2]) : input.resolveSibling(input.getFileName() + OUTPUT_SUFFIX);
+
+        long start = System.nanoTime();
+        var dictionary = loadDictionary(Path.of(args[0]));
+        System.err.printf("Loaded %d words in %d ms%n", dictionary.size(), (System.nanoTime() - start) / 1_000_000);
+
+        var scanner = new ScanCorpus(new Analyser(dictionary, StressPredictor.train(dictionary), new Metrics(),
+                Budget.UNLIMITED));
+        scanner.scan(input, output);
+        scanner.report();
+    }
+
+    /**
+     * Load the dictionary as the plugin does: in place from the snapshot the plugin makes of it if there's an up to
+     * date one, or else by parsing it into a trie
+     * @param path the dictionary, or the compressed copy of it the plugin keeps, whose name ends in
+     *             {@value DictionaryCache#SUFFIX}
+     * @return the dictionary
+     */
+    static Dictionary loadDictionary(Path path) throws IOException {
+        if (path.getFileName().toString().endsWith(DictionaryCache.SUFFIX)) {
+            var parsed = new HashDictionary();
+            new DictionaryCache(path, "").read(line -> CmuParser.parseLine(parsed, line));
+            return TrieDictionary.copyOf(parsed);
+        }
+        var snapshot = path.resolveSibling(path.getFileName() + SNAPSHOT_SUFFIX);
+        // the whole dictionary is read for its checksum anyway, so the snapshot is checked too
+        var mapped = MappedDictionary.open(snapshot, MappedDictionary.checksum(path))
+                .filter(MappedDictionary::verify);
+        if (mapped.isPresent()) {
+            return mapped.get();
+        }
+        return TrieDictionary.copyOf(CmuParser.parse(path));
+    }
+
+    /**
+     * Scan every line of a file, writing the results to another
+     * @param input the file to scan, in UTF-8; anything that isn't valid UTF-8 is replaced
+     * @param output the file to write the results to
+     */
+    void scan(Path input, Path output) throws IOException {
+        // enough batches to keep every core busy while the next one is read
+        int maxInFlight = 2 * ForkJoinPool.getCommonPoolParallelism() + 1;
+        Queue<CompletableFuture<Results>> inFlight = new ArrayDeque<>();
+        var decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try (var reader = new BufferedReader(new InputStreamReader(Files.newInputStream(input), decoder));
+             var writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            long lineNumber = 1;
+            var batch = new ArrayList<String>(BATCH_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                batch.add(line);
+                if (batch.size() == BATCH_SIZE) {
+                    inFlight.add(submit(batch, lineNumber));
+                    lineNumber += batch.size();
+                    batch = new ArrayList<>(BATCH_SIZE);
+                    while (inFlight.size() >= maxInFlight) {
+                        write(inFlight.remove().join(), writer);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                inFlight.add(submit(batch, lineNumber));
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.remove().join(), writer);
+            }
+        }
+    }
+
+    /**
+     * The results of scanning a batch of lines.
+     * @param text the results, a line each
+     * @param lines the number of lines
+     */
+    private record Results(String text, int lines) {
+    }
+
+    private CompletableFuture<Results> submit(List<String> batch, long firstLine) {
+        return CompletableFuture.supplyAsync(() -> {
+            var results = new StringBuilder(batch.size() * 64);
+            for (int i = 0; i < batch.size(); i++) {
+                describe(firstLine + i, analyser.scan(batch.get(i)), results);
+            }
+            return new Results(results.toString(), batch.size());
+        });
+    }
+
+    private void write(Results results, Writer writer) throws IOException {
+        writer.write(results.text());
+        linesWritten += results.lines();
+        long now = System.nanoTime();
+        if (now - lastProgress > PROGRESS_NANOS) {
+            lastProgress = now;
+            report();
+        }
+    }
+
+    /**
+     * Describe how a line scans, as a line of tab-separated values
+     * @param lineNumber the line's number, from 1
+     * @param scansion the line's scansion
+     * @param out where to append the description
+     */
+    static void describe(long lineNumber, Scansion scansion, StringBuilder out) {
+        var fit = scansion.bestFit();
+        out.append(lineNumber).append('\t')
+                .append(fit).append('\t')
+                .append(fit.numIncorrectSyllables()).append('\t');
+        boolean first = true;
+        for (var word : fit.pronounciation().words) {
+            var stress = word.pronounciation().stress();
+            if (stress.isEmpty() || stress.get(0) == Stress.SILENT) {
+                continue;
+            }
+            if (!first) {
+                out.append(' ');
+            }
+            first = false;
+            for (var syllable : stress) {
+                if (syllable != Stress.SILENT) {
+                    out.append(syllable == Stress.HIGH ? '/' : 'x');
+                }
+            }
+        }
+        out.append('\t').append(scansion.mode().name().toLowerCase(Locale.ROOT)).append('\n');
+    }
+
+    private void report() {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Scanned %d lines in %.1f s (%.0f lines/s)%n", linesWritten, seconds,
+                linesWritten / Math.max(seconds, 1e-9));
+    }
+}
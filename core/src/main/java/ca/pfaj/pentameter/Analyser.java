@@ -0,0 +1,119 @@
+package ca.pfaj.pentameter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.List;
+
+/**
+ * Scans chat messages against a dictionary, remembering the scansions of recent messages and the pronounciations of
+ * recent words, since chat repeats itself a lot. Safe to use from many threads. A new analyser is made whenever the
+ * dictionary changes, so nothing cached against an old dictionary is ever used.
+ */
+class Analyser {
+    static final long PHRASE_CACHE_SIZE = 1_000;
+    static final long WORD_CACHE_SIZE = 10_000;
+
+    private final CachingDictionary dictionary;
+    private final Metrics metrics;
+    private final Budget budget;
+    private final Cache<String, Scansion> phrases =
+            CacheBuilder.newBuilder().maximumSize(PHRASE_CACHE_SIZE).recordStats().build();
+
+    Analyser(Dictionary dictionary) {
+        this(dictionary, StressPredictor.UNTRAINED, new Metrics(), Budget.UNLIMITED);
+    }
+
+    /**
+     * @param dictionary the dictionary to look words up in
+     * @param predictor guesses the pronounciations of words that aren't in the dictionary
+     * @param metrics where to record how long each stage takes; shared by every analyser the plugin makes
+     * @param budget how much work to spend scanning each message
+     */
+    Analyser(Dictionary dictionary, StressPredictor predictor, Metrics metrics, Budget budget) {
+        this.dictionary = new CachingDictionary(dictionary, predictor, WORD_CACHE_SIZE, metrics);
+        this.metrics = metrics;
+        this.budget = budget;
+    }
+
+    /**
+     * Scan a message, reusing the scansion of an earlier message that only differed in case and punctuation
+     * @param message the message
+     * @return the message's scansion
+     */
+    Scansion scan(String message) {
+        long start = System.nanoTime();
+        var words = Phrase.parseWords(message, dictionary);
+        metrics.time(Metrics.Stage.TOKENIZE, start);
+        metrics.messages.increment();
+        metrics.combinations.record(combinations(words));
+        var key = normalize(message);
+        var cached = phrases.getIfPresent(key);
+        if (cached != null) {
+            // same words and joiners, so the same pronounciations; only the text shown differs
+            metrics.scanned(cached.mode());
+            return cached.withWords(words);
+        }
+        long scanStart = System.nanoTime();
+        // the budget's time limit counts from when the message arrived, so it covers tokenizing too
+        var scansion = Phrase.SCANNER.scan(words, budget, start);
+        metrics.time(Metrics.Stage.SCAN, scanStart);
+        metrics.scanned(scansion.mode());
+        // a scan over budget might have been within it another time, when the server was less busy
+        if (scansion.mode() == Scansion.Mode.FULL) {
+            phrases.put(key, scansion);
+        }
+        return scansion;
+    }
+
+    /**
+     * Count the pronounciations a message would have if every combination of its words' pronounciations were tried
+     * @param words the message's words
+     * @return the number of combinations, or {@link Long#MAX_VALUE} if there are more than that
+     */
+    static long combinations(List<Word> words) {
+        long combinations = 1;
+        for (var word : words) {
+            int options = word.pronounciationOptions().size();
+            if (options > 1) {
+                combinations = combinations > Long.MAX_VALUE / options ? Long.MAX_VALUE : combinations * options;
+            }
+        }
+        return combinations;
+    }
+
+    /**
+     * Normalize a message so that messages that scan the same way are equal: letters are upper-cased, joiners are
+     * kept, and everything else is dropped, just as {@link Dictionary#cleanWord(String)} does to each word
+     * @param message the message
+     * @return the normalized message
+     */
+    static String normalize(String message) {
+        var normalized = new StringBuilder(message.length());
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (Tokenizer.isJoiner(c)) {
+                normalized.append(c);
+            } else {
+                Tokenizer.appendCleaned(c, normalized);
+            }
+        }
+        return normalized.toString();
+    }
+
+    Dictionary dictionary() {
+        return dictionary;
+    }
+
+    Metrics metrics() {
+        return metrics;
+    }
+
+    Cache<String, Scansion> phraseCache() {
+        return phrases;
+    }
+
+    Cache<?, ?> wordCache() {
+        return dictionary.cache();
+    }
+}
@@ -0,0 +1,12 @@
+package ca.pfaj.pentameter;
+
+/**
+ * How much work scanning one message may take. A message over budget is still coloured, but scanned more cheaply;
+ * see {@link Scansion.Mode}.
+ * @param maxTokens the most words and joiners to scan properly; longer messages aren't scanned at all
+ * @param maxWork the most steps the scanner may take, where a step is trying one syllable from one state
+ * @param maxNanos the most time, from when the message started being analysed, that the scanner may run for
+ */
+record Budget(int maxTokens, long maxWork, long maxNanos) {
+    static final Budget UNLIMITED = new Budget(Integer.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+}
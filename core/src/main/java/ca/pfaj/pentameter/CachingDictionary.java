@@ -0,0 +1,93 @@
+package ca.pfaj.pentameter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * A dictionary that remembers the most recently looked up words of another dictionary. Chat uses the same words over
+ * and over, so most lookups are answered without touching the underlying dictionary. Words that aren't in the
+ * dictionary are given the pronounciation a {@link StressPredictor} guesses for them, which is remembered the same
+ * way. Safe to use from many threads; two threads looking up the same new word at once may both
+ * look it up, which gives the same answer either way.
+ */
+class CachingDictionary implements Dictionary {
+    private final Dictionary dictionary;
+    private final StressPredictor predictor;
+    private final Cache<WordKey, Entry> cache;
+    private final Metrics metrics;
+
+    /**
+     * A remembered word.
+     * @param pronounciations the word's pronounciations
+     * @param guessed whether they were guessed, since the word isn't in the dictionary
+     */
+    private record Entry(Set<Pronounciation> pronounciations, boolean guessed) {
+    }
+
+    /**
+     * @param dictionary the dictionary to look words up in
+     * @param maximumSize the most words to remember
+     * @param metrics where to record lookups
+     */
+    CachingDictionary(Dictionary dictionary, long maximumSize, Metrics metrics) {
+        this(dictionary, StressPredictor.UNTRAINED, maximumSize, metrics);
+    }
+
+    /**
+     * @param dictionary the dictionary to look words up in
+     * @param predictor guesses the pronounciations of words that aren't in the dictionary
+     * @param maximumSize the most words to remember
+     * @param metrics where to record lookups
+     */
+    CachingDictionary(Dictionary dictionary, StressPredictor predictor, long maximumSize, Metrics metrics) {
+        this.dictionary = dictionary;
+        this.predictor = predictor;
+        this.metrics = metrics;
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    /**
+     * Look a word up with {@link Dictionary#lookup(CharSequence)}, so compounds are found too, or if it isn't found,
+     * guess its pronounciation; so unlike other dictionaries, this never returns null
+     */
+    @Override
+    public Set<Pronounciation> get(CharSequence word) {
+        long start = System.nanoTime();
+        // look the word up in place; only a word that isn't remembered yet is copied, to be kept as its key
+        var entry = cache.getIfPresent(WordKey.view(word));
+        if (entry == null) {
+            var key = WordKey.copyOf(word);
+            var found = dictionary.lookup(key);
+            entry = found != null ? new Entry(found, false) : new Entry(predictor.predict(key), true);
+            cache.put(key, entry);
+        }
+        metrics.time(Metrics.Stage.LOOKUP, start);
+        metrics.words.increment();
+        if (entry.guessed()) {
+            metrics.fallbacks.increment();
+        }
+        return entry.pronounciations();
+    }
+
+    @Override
+    public int size() {
+        return dictionary.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Set<Pronounciation>> action) {
+        dictionary.forEach(action);
+    }
+
+    @Override
+    public long heapFootprint() {
+        return dictionary.heapFootprint();
+    }
+
+    Cache<?, ?> cache() {
+        return cache;
+    }
+}
@@ -0,0 +1,65 @@
+package ca.pfaj.pentameter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Parses the text of the CMU Pronouncing Dictionary.
+ */
+class CmuParser {
+    private CmuParser() {
+    }
+
+    /**
+     * Parse the dictionary, splitting the file into chunks that are parsed in parallel and then merged
+     * @param path the dictionary file
+     * @return the dictionary
+     * @throws IOException if the file can't be read
+     */
+    static HashDictionary parse(Path path) throws IOException {
+        // the dictionary is ISO-8859-1, which also lets Files.lines split the file for a parallel stream
+        try (var lines = Files.lines(path, StandardCharsets.ISO_8859_1)) {
+            return lines.parallel().collect(HashDictionary::new, CmuParser::parseLine, HashDictionary::addAll);
+        }
+    }
+
+    /**
+     * Parse one line of the dictionary (like WOJCIECH  V OY1 CH EH0 K) and add it to a dictionary
+     * @param dictionary the dictionary to add the word to
+     * @param line the line to parse
+     */
+    static void parseLine(HashDictionary dictionary, String line) {
+        // ignore non-words
+        if (line.isEmpty() || !Character.isLetter(line.charAt(0))) {
+            return;
+        }
+        int space = line.indexOf(' ');
+        if (space < 0) {
+            return;
+        }
+        var word = line.substring(0, space);
+        // find words like WOJCIECH(1) which indicate an alternative pronounciation, and trim the ()
+        if (word.indexOf('(') > 0) {
+            word = word.substring(0, word.indexOf('('));
+        }
+        // parse the pronounciation string (like V OY1 CH EH0 K)
+        // 0 is no stress, 1 is primary stress, 2 is secondary stress; combine the latter two
+        var stress = new ArrayList<Stress>();
+        for (int i = space + 1; i < line.length(); i++) {
+            switch (line.charAt(i)) {
+                case '0' -> stress.add(Stress.LOW);
+                case '1', '2' -> stress.add(Stress.HIGH);
+            }
+        }
+        // if word has one syllable, can be stressed or unstressed; otherwise save the one stress pattern
+        if (stress.size() == 1) {
+            dictionary.add(word, Stress.HIGH);
+            dictionary.add(word, Stress.LOW);
+        } else {
+            dictionary.add(word, stress);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ca.pfaj.pentameter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+
+/**
+ * A pronouncing dictionary, mapping words (cleaned with {@link #cleanWord(String)}) to the ways they can be
+ * pronounced.
+ */
+interface Dictionary {
+    // A single-syllable word can be either stressed or unstressed
+    Set<Pronounciation> SINGLE = Set.of(
+            new Pronounciation[]{
+                    new Pronounciation(List.of(Stress.HIGH)),
+                    new Pronounciation(List.of(Stress.LOW)),
+            });
+
+    // A silent word
+    Set<Pronounciation> SILENT = Set.of(new Pronounciation(List.of(Stress.SILENT)));
+
+    /**
+     * Finds the words of a dictionary that start at a position in another word, for splitting compounds.
+     */
+    interface Prefixes {
+        /**
+         * Find every word in the dictionary that starts at a position in a word
+         * @param word the cleaned text of the word
+         * @param start the position
+         * @param end given where each word found ends, in any order
+         */
+        void forEachWord(CharSequence word, int start, IntConsumer end);
+    }
+
+    /**
+     * Get the pronounciations of a word
+     * @param word the cleaned text of the word; may be a buffer that is reused once this returns
+     * @return the word's pronounciations, or null if the word isn't in the dictionary
+     */
+    Set<Pronounciation> get(CharSequence word);
+
+    /**
+     * Get the pronounciations of a word, or a fallback if the word isn't in the dictionary
+     * @param word the cleaned text of the word
+     * @param fallback the pronounciations to use if the word isn't found
+     * @return the word's pronounciations, or the fallback
+     */
+    default Set<Pronounciation> getOrDefault(CharSequence word, Set<Pronounciation> fallback) {
+        var pronounciations = get(word);
+        return pronounciations != null ? pronounciations : fallback;
+    }
+
+    /**
+     * Look a word up as chat sees it: exactly, or for dictionaries that can, by working out the pronounciations of a
+     * word that isn't in the dictionary from words that are
+     * @param word the cleaned text of the word; may be a buffer that is reused once this returns
+     * @return the word's pronounciations, or null if they can't be found
+     */
+    default Set<Pronounciation> lookup(CharSequence word) {
+        return get(word);
+    }
+
+    /**
+     * Get the number of words in the dictionary
+     * @return the number of words
+     */
+    int size();
+
+    /**
+     * Visit every word in the dictionary along with its pronounciations
+     * @param action called once for each word
+     */
+    void forEach(BiConsumer<String, Set<Pronounciation>> action);
+
+    /**
+     * Estimate how much heap the dictionary uses
+     * @return an estimate in bytes, or -1 if the dictionary can't tell
+     */
+    default long heapFootprint() {
+        return -1;
+    }
+
+    static String cleanWord(String word) {
+        word = word.toUpperCase();
+        word = word.replaceAll("[^a-zA-Z]", "");
+        return word;
+    }
+}
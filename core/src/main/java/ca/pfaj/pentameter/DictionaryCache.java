@@ -0,0 +1,270 @@
+package ca.pfaj.pentameter;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A gzip-compressed local copy of the text of the CMU Pronouncing Dictionary. The copy is filled from any stream, such
+ * as a download, and read back the same way; either way each line is handed on as soon as it has arrived, so the
+ * dictionary can be parsed while it's being downloaded rather than after.
+ * <p>
+ * The copy is written to a temporary file and only moved into place once the whole stream has been read and checked,
+ * so a download that fails part way leaves nothing behind. Reading the copy checks it against the CRC-32 gzip keeps of
+ * the text, and against the text's expected SHA-256; a copy that fails either check throws, and whatever its lines were
+ * handed to should be thrown away.
+ * <p>
+ * If no SHA-256 is given, the SHA-256 of the first text that's kept can be recorded in a file next to the copy with
+ * {@link #recordSha256}, and every later copy, whether read or downloaded again, must have the same one until that
+ * file is deleted.
+ */
+final class DictionaryCache {
+    static final String SUFFIX = ".gz";
+    static final String TEMP_SUFFIX = ".tmp";
+    static final String SHA256_SUFFIX = ".sha256";
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    /**
+     * What was read.
+     * @param checksum the CRC-32 of the text, the same as {@link MappedDictionary#checksum} of the text's file
+     * @param sha256 the SHA-256 of the text, in hex
+     * @param bytes the length of the text
+     */
+    record Result(long checksum, String sha256, long bytes) {
+    }
+
+    private final Path path;
+    private final String expectedSha256;
+
+    /**
+     * @param path the compressed copy
+     * @param expectedSha256 the SHA-256 the text must have, in hex, or empty to accept any text that arrives intact
+     * and then always expect that text's SHA-256
+     */
+    DictionaryCache(Path path, String expectedSha256) {
+        this.path = path;
+        this.expectedSha256 = expectedSha256.trim();
+    }
+
+    Path path() {
+        return path;
+    }
+
+    boolean exists() {
+        return Files.isRegularFile(path);
+    }
+
+    /**
+     * Get the file the SHA-256 of the first text kept is recorded in, when no SHA-256 is given
+     * @return the file, which may not exist
+     */
+    Path recordedSha256Path() {
+        return path.resolveSibling(path.getFileName() + SHA256_SUFFIX);
+    }
+
+    /**
+     * Record the SHA-256 of the text just kept, if no SHA-256 was given and none has been recorded yet. The copy is
+     * good whether or not this works, so a failure is only worth a warning.
+     * @param result what was kept
+     * @throws IOException if the SHA-256 can't be written
+     */
+    void recordSha256(Result result) throws IOException {
+        if (expectedSha256.isEmpty() && !Files.isRegularFile(recordedSha256Path())) {
+            Files.writeString(recordedSha256Path(), result.sha256() + "\n", StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Get the CRC-32 of the text, as recorded at the end of the copy, without reading the rest of it. This is only as
+     * trustworthy as the copy, which {@link #read} checks.
+     * @return the recorded CRC-32
+     * @throws IOException if the copy can't be read or is too short to be gzip
+     */
+    long recordedChecksum() throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < GZIP_TRAILER_SIZE) {
+                throw new IOException(path + " is too short to be gzip");
+            }
+            // the trailer is the CRC-32 of the text and its length, little-endian
+            var trailer = ByteBuffer.allocate(GZIP_TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (trailer.hasRemaining()) {
+                if (channel.read(trailer, channel.size() - GZIP_TRAILER_SIZE + trailer.position()) < 0) {
+                    throw new IOException("unexpected end of " + path);
+                }
+            }
+            return trailer.getInt(0) & 0xFFFFFFFFL;
+        }
+    }
+
+    /**
+     * Fill the copy from a stream, replacing any copy there already is once the whole stream has been read and checked
+     * @param source the text of the dictionary, which is read to the end but not closed
+     * @param length the length the text should have, such as a download's Content-Length, or -1 if it isn't known
+     * @param lines given each line of the text as it arrives
+     * @return what was read
+     * @throws IOException if the stream can't be read, the copy can't be written, or the text isn't what was expected;
+     * the old copy, if any, is left as it was
+     */
+    Result fill(InputStream source, long length, Consumer<String> lines) throws IOException {
+        return fill(source, length, lines, () -> true);
+    }
+
+    /**
+     * Fill the copy from a stream, replacing any copy there already is once the whole stream has been read and checked
+     * @param source the text of the dictionary, which is read to the end but not closed
+     * @param length the length the text should have, such as a download's Content-Length, or -1 if it isn't known
+     * @param lines given each line of the text as it arrives
+     * @param complete asked once every line has been handed on whether they made a dictionary, such as whether any
+     * words were parsed from them; if not, the text isn't kept
+     * @return what was read
+     * @throws IOException if the stream can't be read, the copy can't be written, or the text isn't what was expected;
+     * the old copy, if any, is left as it was
+     */
+    Result fill(InputStream source, long length, Consumer<String> lines, BooleanSupplier complete) throws IOException {
+        var temp = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        try {
+            Result result;
+            var channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            try (var compressed = new GZIPOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+                result = readLines(new Tee(source, compressed), lines);
+                // a connection that's cut off can look like the end of the stream
+                if (length >= 0 && result.bytes() != length) {
+                    throw new IOException("dictionary ended after " + result.bytes() + " of " + length + " bytes");
+                }
+                // like an error page served in place of the dictionary
+                if (!complete.getAsBoolean()) {
+                    throw new IOException("dictionary has no words");
+                }
+                compressed.finish();
+                compressed.flush();
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Read the copy
+     * @param lines given each line of the text as it's read
+     * @return what was read
+     * @throws IOException if the copy can't be read, is damaged, or isn't what was expected
+     */
+    Result read(Consumer<String> lines) throws IOException {
+        try (var in = new GZIPInputStream(Files.newInputStream(path))) {
+            // gzip checks its own CRC-32 once the text has been read to the end
+            return readLines(new Tee(in, OutputStream.nullOutputStream()), lines);
+        }
+    }
+
+    private Result readLines(Tee text, Consumer<String> lines) throws IOException {
+        // the dictionary is ISO-8859-1, so every byte is a character and nothing can fail to decode
+        var reader = new BufferedReader(new InputStreamReader(text, StandardCharsets.ISO_8859_1));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.accept(line);
+        }
+        var sha256 = HexFormat.of().formatHex(text.sha256.digest());
+        if (!expectedSha256.isEmpty()) {
+            if (!expectedSha256.equalsIgnoreCase(sha256)) {
+                throw new IOException("dictionary has SHA-256 " + sha256 + ", expected " + expectedSha256);
+            }
+        } else if (Files.isRegularFile(recordedSha256Path())) {
+            var recorded = Files.readString(recordedSha256Path(), StandardCharsets.US_ASCII).trim();
+            if (!recorded.equalsIgnoreCase(sha256)) {
+                throw new IOException("dictionary has SHA-256 " + sha256 + ", but " + recorded + " was recorded "
+                        + "when it was first downloaded; if the new dictionary is trusted, delete "
+                        + recordedSha256Path().toAbsolutePath());
+            }
+        }
+        return new Result(text.crc.getValue(), sha256, text.bytes);
+    }
+
+    /**
+     * Copies everything read through it to another stream, and checksums it.
+     */
+    private static final class Tee extends FilterInputStream {
+        private final OutputStream copy;
+        private final CRC32 crc = new CRC32();
+        private final MessageDigest sha256;
+        private long bytes;
+
+        Tee(InputStream in, OutputStream copy) {
+            super(in);
+            this.copy = copy;
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                // every Java platform has SHA-256
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                copy.write(b);
+                crc.update(b);
+                sha256.update((byte) b);
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = in.read(buffer, offset, length);
+            if (read > 0) {
+                copy.write(buffer, offset, read);
+                crc.update(buffer, offset, read);
+                sha256.update(buffer, offset, read);
+                bytes += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // skipped bytes still need copying and checksumming
+            var buffer = new byte[(int) Math.min(n, 8192)];
+            int read = n > 0 ? read(buffer, 0, buffer.length) : 0;
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // the caller closes the streams it opened
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ca.pfaj.pentameter;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * A dictionary held in an ordinary hash map, which words can be added to. Words are keyed by {@link WordKey}, so
+ * looking one up doesn't copy it.
+ */
+class HashDictionary implements Dictionary {
+    Map<WordKey, Set<Pronounciation>> store = new HashMap<>();
+
+    @Override
+    public Set<Pronounciation> get(CharSequence word) {
+        return store.get(WordKey.view(word));
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Set<Pronounciation>> action) {
+        store.forEach((word, pronounciations) -> action.accept(word.toString(), pronounciations));
+    }
+
+    /**
+     * Add a word with a pronounciation
+     * @param word the text of the word
+     * @param pronounciation the word's pronounciation
+     */
+    public void add(String word, Pronounciation pronounciation) {
+        var entry = store.computeIfAbsent(WordKey.copyOf(word), k -> new HashSet<>());
+        entry.add(pronounciation);
+    }
+
+    /**
+     * Add all of another dictionary's words and pronounciations to this one
+     * @param other the dictionary to add
+     */
+    public void addAll(HashDictionary other) {
+        other.store.forEach((word, pronounciations) ->
+                store.computeIfAbsent(word, k -> new HashSet<>()).addAll(pronounciations));
+    }
+
+    /**
+     * Add a word with a pronounciation (as a list of stresses)
+     * @param word the text of the word
+     * @param pronounciation the word's pronounciation
+     */
+    public void add(String word, List<Stress> pronounciation) {
+        Pronounciation p = new Pronounciation(pronounciation);
+        add(word, p);
+    }
+
+    /**
+     * Add a word with a single syllable and a single pronounciation;
+     * @param word the text of the word
+     * @param pronounciation the stress of the word's single syllable
+     */
+    public void add(String word, Stress pronounciation) {
+        var list = new LinkedList<Stress>();
+        list.add(pronounciation);
+        add(word, list);
+    }
+}
@@ -0,0 +1,40 @@
+package ca.pfaj.pentameter;
+
+/**
+ * Rough sizes of arrays and strings on the heap, for the estimates reported by {@code heapFootprint}. Arrays have a
+ * 16 byte header, references are counted as 8 bytes, and a string is about 40 bytes more than its characters.
+ */
+final class HeapSize {
+    static final int ARRAY_HEADER = 16;
+    static final int REFERENCE = 8;
+    static final int STRING_OVERHEAD = 40;
+
+    private HeapSize() {
+    }
+
+    static long of(byte[] array) {
+        return ARRAY_HEADER + array.length;
+    }
+
+    static long of(int[] array) {
+        return ARRAY_HEADER + (long) array.length * Integer.BYTES;
+    }
+
+    static long of(long[] array) {
+        return ARRAY_HEADER + (long) array.length * Long.BYTES;
+    }
+
+    /**
+     * @return the size of the array of references alone, not what they refer to
+     */
+    static long of(Object[] array) {
+        return ARRAY_HEADER + (long) array.length * REFERENCE;
+    }
+
+    /**
+     * @return the size of the string and its characters, assuming they're Latin-1
+     */
+    static long of(String string) {
+        return STRING_OVERHEAD + string.length();
+    }
+}
@@ -0,0 +1,150 @@
+package ca.pfaj.pentameter;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * What's worked out from the dictionary besides its words: which words rhyme, how spellings are pronounced, and the
+ * words by stress pattern. A snapshot of these is kept next to the dictionary's own {@link MappedDictionary}
+ * snapshot, so that starting up doesn't have to read the dictionary's text, train the predictor or index the words
+ * again.
+ * <p>
+ * Snapshot layout (big-endian):
+ * <pre>
+ *   header:  magic (int), version (int), source checksum (long), payload checksum (long)
+ *   payload: the rhyme index, the predictor and the stress index, each a run of arrays
+ *   array:   length (int), then the elements
+ * </pre>
+ * Unlike the dictionary's snapshot, this one is read onto the heap, where the indexes live anyway, so it's checked
+ * against its payload checksum as it's read.
+ *
+ * @param rhymes which words rhyme
+ * @param predictor how spellings are pronounced
+ * @param stress the words by stress pattern
+ */
+record IndexSnapshot(RhymeIndex rhymes, StressPredictor predictor, StressIndex stress) {
+    static final int MAGIC = 0x504E5449; // "PNTI"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+
+    /**
+     * Work out the indexes a dictionary needs, other than its rhymes, which need the phonemes that only its text has
+     * @param dictionary the dictionary
+     * @param rhymes the dictionary's rhymes, read from its text
+     * @return the indexes
+     */
+    static IndexSnapshot build(Dictionary dictionary, RhymeIndex rhymes) {
+        return new IndexSnapshot(rhymes, StressPredictor.train(dictionary), StressIndex.of(dictionary));
+    }
+
+    /**
+     * Read a snapshot, if it exists and was built from the given source by this version of the plugin
+     * @param path the snapshot file
+     * @param sourceChecksum the checksum of the source the snapshot should have been built from
+     * @return the indexes, or nothing if the snapshot is missing, stale or damaged
+     * @throws IOException if the snapshot exists but can't be read
+     */
+    static Optional<IndexSnapshot> read(Path path, long sourceChecksum) throws IOException {
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || buffer.getLong(8) != sourceChecksum) {
+            return Optional.empty();
+        }
+        var crc = new CRC32();
+        crc.update(buffer.slice(HEADER_SIZE, buffer.capacity() - HEADER_SIZE));
+        if (buffer.getLong(16) != crc.getValue()) {
+            return Optional.empty();
+        }
+        buffer.position(HEADER_SIZE);
+        try {
+            var snapshot = new IndexSnapshot(RhymeIndex.read(buffer), StressPredictor.read(buffer),
+                    StressIndex.read(buffer));
+            return buffer.hasRemaining() ? Optional.empty() : Optional.of(snapshot);
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException
+                 | NegativeArraySizeException e) {
+            // written by a version that laid the payload out differently without changing VERSION
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Write the snapshot. Like {@link MappedDictionary#write}, it's written to a temporary file first and then moved
+     * into place.
+     * @param path the snapshot file
+     * @param sourceChecksum the checksum of the source the indexes were built from
+     * @throws IOException if the snapshot can't be written
+     */
+    void write(Path path, long sourceChecksum) throws IOException {
+        var payload = new ByteArrayOutputStream();
+        var out = new DataOutputStream(payload);
+        rhymes.write(out);
+        predictor.write(out);
+        stress.write(out);
+        out.flush();
+        var bytes = payload.toByteArray();
+        var crc = new CRC32();
+        crc.update(bytes);
+
+        var temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (var file = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            file.writeInt(MAGIC);
+            file.writeInt(VERSION);
+            file.writeLong(sourceChecksum);
+            file.writeLong(crc.getValue());
+            file.write(bytes);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static void writeArray(DataOutput out, byte[] array) throws IOException {
+        out.writeInt(array.length);
+        out.write(array);
+    }
+
+    static void writeArray(DataOutput out, int[] array) throws IOException {
+        out.writeInt(array.length);
+        for (int value : array) {
+            out.writeInt(value);
+        }
+    }
+
+    static void writeArray(DataOutput out, long[] array) throws IOException {
+        out.writeInt(array.length);
+        for (long value : array) {
+            out.writeLong(value);
+        }
+    }
+
+    static byte[] readBytes(ByteBuffer in) {
+        var array = new byte[in.getInt()];
+        in.get(array);
+        return array;
+    }
+
+    static int[] readInts(ByteBuffer in) {
+        var array = new int[in.getInt()];
+        in.asIntBuffer().get(array);
+        in.position(in.position() + array.length * Integer.BYTES);
+        return array;
+    }
+
+    static long[] readLongs(ByteBuffer in) {
+        var array = new long[in.getInt()];
+        in.asLongBuffer().get(array);
+        in.position(in.position() + array.length * Long.BYTES);
+        return array;
+    }
+}
@@ -0,0 +1,191 @@
+package ca.pfaj.pentameter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable dictionary made of a base dictionary and overlay layers on top of it, each overlay read from a file
+ * in the same format as the CMU Pronouncing Dictionary. A word in an overlay replaces the same word in the base and
+ * in earlier overlays; overlays are applied in order of their file names.
+ * <p>
+ * Changing a layer makes a new dictionary that shares the base and every other layer with the old one, so only the
+ * changed layer is parsed again, and anything still reading the old dictionary carries on undisturbed.
+ * <p>
+ * A compound is split into words from the base and the overlays alike, so a new word in an overlay can be part of
+ * one, as long as the base and the overlays can find their words in a compound (see {@link Dictionary.Prefixes}).
+ */
+final class LayeredDictionary implements Dictionary, Dictionary.Prefixes {
+    static final String OVERLAY_SUFFIX = ".dict";
+
+    /**
+     * An overlay.
+     * @param name the name of the file it was read from
+     * @param checksum the checksum of the file, to tell whether it has changed
+     * @param words the overlay's words
+     */
+    record Layer(String name, long checksum, Dictionary words) {
+    }
+
+    /**
+     * The result of reloading the overlays.
+     * @param dictionary the new dictionary
+     * @param rebuilt the names of the overlays that were new or changed, and so were parsed
+     * @param removed the names of the overlays whose files are gone
+     */
+    record Reload(LayeredDictionary dictionary, List<String> rebuilt, List<String> removed) {
+    }
+
+    private final Dictionary base;
+    // in the order they're applied
+    private final List<Layer> layers;
+    private final int size;
+
+    /**
+     * @param base the base dictionary
+     * @param layers the overlays, in the order they're applied
+     */
+    LayeredDictionary(Dictionary base, List<Layer> layers) {
+        this.base = base;
+        this.layers = List.copyOf(layers);
+        // count each word once, however many layers have it
+        var overlaid = new HashSet<String>();
+        for (var layer : this.layers) {
+            layer.words().forEach((word, pronounciations) -> overlaid.add(word));
+        }
+        int shadowed = 0;
+        for (var word : overlaid) {
+            if (base.get(word) != null) {
+                shadowed++;
+            }
+        }
+        size = base.size() + overlaid.size() - shadowed;
+    }
+
+    /**
+     * Read the overlays in a directory again, parsing only those that are new or have changed since this dictionary
+     * was made
+     * @param directory the directory of overlays, which are the files ending in {@value #OVERLAY_SUFFIX}
+     * @return the new dictionary, and what changed
+     * @throws IOException if an overlay can't be read
+     */
+    Reload reload(Path directory) throws IOException {
+        var current = new HashMap<String, Layer>();
+        for (var layer : layers) {
+            current.put(layer.name(), layer);
+        }
+        List<Path> files;
+        try (var list = Files.list(directory)) {
+            files = list.filter(path -> path.getFileName().toString().endsWith(OVERLAY_SUFFIX))
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .toList();
+        }
+
+        var reloaded = new ArrayList<Layer>(files.size());
+        var rebuilt = new ArrayList<String>();
+        for (var file : files) {
+            var name = file.getFileName().toString();
+            long checksum = MappedDictionary.checksum(file);
+            var layer = current.remove(name);
+            if (layer == null || layer.checksum() != checksum) {
+                layer = new Layer(name, checksum, TrieDictionary.copyOf(CmuParser.parse(file)));
+                rebuilt.add(name);
+            }
+            reloaded.add(layer);
+        }
+        var removed = current.keySet().stream().sorted().toList();
+        return new Reload(new LayeredDictionary(base, reloaded), rebuilt, removed);
+    }
+
+    @Override
+    public Set<Pronounciation> get(CharSequence word) {
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            var pronounciations = layers.get(i).words().get(word);
+            if (pronounciations != null) {
+                return pronounciations;
+            }
+        }
+        return base.get(word);
+    }
+
+    /**
+     * Look a word up, or if it isn't in the base or any layer, split it into words that are
+     */
+    @Override
+    public Set<Pronounciation> lookup(CharSequence word) {
+        var pronounciations = get(word);
+        return pronounciations != null ? pronounciations : TrieDictionary.decompose(word, this, this);
+    }
+
+    /**
+     * Find the words of the base and every layer that start at a position in a word; a word in more than one of them
+     * is found more than once
+     */
+    @Override
+    public void forEachWord(CharSequence word, int start, IntConsumer end) {
+        if (base instanceof Dictionary.Prefixes prefixes) {
+            prefixes.forEachWord(word, start, end);
+        }
+        for (var layer : layers) {
+            if (layer.words() instanceof Dictionary.Prefixes prefixes) {
+                prefixes.forEachWord(word, start, end);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Set<Pronounciation>> action) {
+        // visit each word once, as it's pronounced in the last layer that has it
+        var seen = new HashSet<String>();
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            layers.get(i).words().forEach((word, pronounciations) -> {
+                if (seen.add(word)) {
+                    action.accept(word, pronounciations);
+                }
+            });
+        }
+        base.forEach((word, pronounciations) -> {
+            if (!seen.contains(word)) {
+                action.accept(word, pronounciations);
+            }
+        });
+    }
+
+    @Override
+    public long heapFootprint() {
+        long footprint = base.heapFootprint();
+        for (var layer : layers) {
+            long layerFootprint = layer.words().heapFootprint();
+            if (footprint < 0 || layerFootprint < 0) {
+                return -1;
+            }
+            footprint += layerFootprint;
+        }
+        return footprint;
+    }
+
+    /**
+     * Get the overlays on their own, without the base
+     * @return a dictionary of just the overlays' words
+     */
+    LayeredDictionary overlays() {
+        return new LayeredDictionary(new HashDictionary(), layers);
+    }
+
+    List<Layer> layers() {
+        return layers;
+    }
+}
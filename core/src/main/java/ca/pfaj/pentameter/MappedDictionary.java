@@ -0,0 +1,311 @@
+package ca.pfaj.pentameter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * A dictionary read in place from a memory-mapped binary snapshot, so that it neither has to be parsed on startup
+ * nor kept on the heap. Like {@link TrieDictionary}, it can split a compound it doesn't know into words it does, by
+ * narrowing down the sorted index a letter at a time rather than walking a trie.
+ * <p>
+ * Snapshot layout (big-endian):
+ * <pre>
+ *   header:  magic (int), version (int), source checksum (long), payload checksum (long), word count (int),
+ *            set count (int)
+ *   sets:    for each interned set of pronounciations, its size (byte) and its packed patterns (long each)
+ *   index:   one int per word, the offset of its entry within the entries; sorted by word
+ *   entries: word length (byte), word (ISO-8859-1), set id (int)
+ * </pre>
+ * Patterns are packed and sets are numbered as in {@link StressPatterns}. Only the few hundred sets are read onto
+ * the heap. The source checksum is the CRC-32 of the text the snapshot was built from, so a stale snapshot can be
+ * spotted when it's opened. The payload checksum covers everything after the header, so a damaged one can be too,
+ * but checking it reads the whole file, so that's left to {@link #verify()}, which can be called off the startup
+ * path.
+ */
+class MappedDictionary implements Dictionary, Dictionary.Prefixes {
+    static final int MAGIC = 0x504E544D; // "PNTM"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final Set<Pronounciation>[] sets;
+    private final StressPatterns patterns;
+    private final int indexStart;
+    private final int entriesStart;
+
+    private MappedDictionary(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.size = buffer.getInt(HEADER_SIZE - 8);
+        // read the sets onto the heap, interning them in the order they were written so their ids are kept
+        int setCount = buffer.getInt(HEADER_SIZE - 4);
+        this.patterns = new StressPatterns();
+        int position = HEADER_SIZE;
+        for (int i = 0; i < setCount; i++) {
+            var packed = new long[buffer.get(position) & 0xFF];
+            for (int j = 0; j < packed.length; j++) {
+                packed[j] = buffer.getLong(position + 1 + j * Long.BYTES);
+            }
+            patterns.intern(packed);
+            position += 1 + packed.length * Long.BYTES;
+        }
+        this.sets = patterns.toArray();
+        this.indexStart = position;
+        this.entriesStart = indexStart + size * 4;
+    }
+
+    /**
+     * Open a snapshot, if it exists and was built from the given source by this version of the plugin. Only the
+     * header and the sets are read; the rest is paged in as words are looked up, so a damaged snapshot may still
+     * open, and callers that need to know should {@link #verify()} it.
+     * @param path the snapshot file
+     * @param sourceChecksum the checksum of the source the snapshot should have been built from
+     * @return the dictionary, or nothing if the snapshot is missing, stale or obviously damaged
+     * @throws IOException if the snapshot exists but can't be read
+     */
+    static Optional<MappedDictionary> open(Path path, long sourceChecksum) throws IOException {
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        MappedByteBuffer buffer;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+            // the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != sourceChecksum) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new MappedDictionary(buffer));
+        } catch (IndexOutOfBoundsException e) {
+            // the sets run past the end of the file
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Check the snapshot against its payload checksum. This reads the whole file, so it's slow the first time.
+     * @return whether the snapshot is undamaged
+     */
+    boolean verify() {
+        var crc = new CRC32();
+        crc.update(buffer.slice(HEADER_SIZE, buffer.capacity() - HEADER_SIZE));
+        return buffer.getLong(16) == crc.getValue();
+    }
+
+    /**
+     * Write a snapshot of a dictionary. The snapshot is written to a temporary file first and then moved into place,
+     * so a crash part way through never leaves a half-written snapshot behind.
+     * @param path the snapshot file
+     * @param dictionary the dictionary to write
+     * @param sourceChecksum the checksum of the source the dictionary was built from
+     * @throws IOException if the snapshot can't be written
+     */
+    static void write(Path path, Dictionary dictionary, long sourceChecksum) throws IOException {
+        var words = new ArrayList<String>(dictionary.size());
+        var setIds = new HashMap<String, Integer>(dictionary.size() * 2);
+        var patterns = new StressPatterns();
+        dictionary.forEach((word, options) -> {
+            if (word.length() <= 0xFF && options.size() <= 0xFF) {
+                words.add(word);
+                setIds.put(word, patterns.intern(options));
+            }
+        });
+        // Strings compare by char, which matches unsigned byte order for ISO-8859-1
+        Collections.sort(words);
+
+        var payload = new ByteArrayOutputStream();
+        var out = new DataOutputStream(payload);
+        for (int i = 0; i < patterns.size(); i++) {
+            var packed = patterns.patterns(i);
+            out.writeByte(packed.length);
+            for (var pattern : packed) {
+                out.writeLong(pattern);
+            }
+        }
+        var entries = new ByteArrayOutputStream();
+        var entriesOut = new DataOutputStream(entries);
+        for (var word : words) {
+            out.writeInt(entries.size());
+            entriesOut.writeByte(word.length());
+            entriesOut.write(word.getBytes(StandardCharsets.ISO_8859_1));
+            entriesOut.writeInt(setIds.get(word));
+        }
+        entries.writeTo(out);
+        out.flush();
+        var bytes = payload.toByteArray();
+        var crc = new CRC32();
+        crc.update(bytes);
+
+        var header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(sourceChecksum).putLong(crc.getValue())
+                .putInt(words.size()).putInt(patterns.size());
+        header.flip();
+
+        var temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var body = ByteBuffer.wrap(bytes);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Compute the checksum of a file, to tell whether a snapshot was built from it
+     * @param path the file
+     * @return the file's CRC-32
+     * @throws IOException if the file can't be read
+     */
+    static long checksum(Path path) throws IOException {
+        var crc = new CRC32();
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = 0;
+            long size = channel.size();
+            while (position < size) {
+                long length = Math.min(size - position, Integer.MAX_VALUE);
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+                position += length;
+            }
+        }
+        return crc.getValue();
+    }
+
+    @Override
+    public Set<Pronounciation> get(CharSequence word) {
+        // binary search the index, comparing the word against each entry in place
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = entriesStart + buffer.getInt(indexStart + mid * 4);
+            int cmp = compare(entry, word);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return readPronounciations(entry);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Look a word up, or if it isn't in the dictionary, split it into words that are
+     */
+    @Override
+    public Set<Pronounciation> lookup(CharSequence word) {
+        var pronounciations = get(word);
+        return pronounciations != null ? pronounciations : TrieDictionary.decompose(word, this, this);
+    }
+
+    /**
+     * Find every word that starts at a position in a word. The words sharing the first d letters of what's been read
+     * so far are a range of the index, in which those with just d letters come first and the rest are sorted by their
+     * next letter, so each letter narrows the range with two binary searches.
+     */
+    @Override
+    public void forEachWord(CharSequence word, int start, IntConsumer end) {
+        int low = 0;
+        int high = size;
+        for (int j = start; j < word.length() && low < high; j++) {
+            int depth = j - start;
+            char c = word.charAt(j);
+            low = lowerBound(low, high, depth, c);
+            high = lowerBound(low, high, depth, c + 1);
+            if (low < high && (buffer.get(entry(low)) & 0xFF) == depth + 1) {
+                end.accept(j + 1);
+            }
+        }
+    }
+
+    /**
+     * Find the first word in a range of the index whose letter at a depth is at least a letter, counting words that
+     * are too short as before every letter
+     */
+    private int lowerBound(int low, int high, int depth, int c) {
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int entry = entry(mid);
+            int letter = (buffer.get(entry) & 0xFF) > depth ? buffer.get(entry + 1 + depth) & 0xFF : -1;
+            if (letter < c) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int entry(int i) {
+        return entriesStart + buffer.getInt(indexStart + i * 4);
+    }
+
+    /**
+     * Compare the word stored at an entry with another word
+     * @return negative, zero or positive as the stored word is before, equal to or after the other word
+     */
+    private int compare(int entry, CharSequence word) {
+        int length = buffer.get(entry) & 0xFF;
+        int common = Math.min(length, word.length());
+        for (int i = 0; i < common; i++) {
+            int cmp = (buffer.get(entry + 1 + i) & 0xFF) - word.charAt(i);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - word.length();
+    }
+
+    private String readWord(int entry) {
+        var bytes = new byte[buffer.get(entry) & 0xFF];
+        buffer.get(entry + 1, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private Set<Pronounciation> readPronounciations(int entry) {
+        return sets[buffer.getInt(entry + 1 + (buffer.get(entry) & 0xFF))];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Set<Pronounciation>> action) {
+        for (int i = 0; i < size; i++) {
+            int entry = entriesStart + buffer.getInt(indexStart + i * 4);
+            action.accept(readWord(entry), readPronounciations(entry));
+        }
+    }
+
+    @Override
+    public long heapFootprint() {
+        // the snapshot itself is mapped outside the heap
+        return HeapSize.of(sets) + patterns.heapFootprint();
+    }
+}
@@ -0,0 +1,83 @@
+package ca.pfaj.pentameter;
+
+import java.util.List;
+
+/**
+ * A meter, as a small automaton over the stresses of syllables. State 0 is the start of a foot; a syllable that fits
+ * the meter moves the automaton along, and one that doesn't counts as an incorrect syllable.
+ */
+interface Meter {
+    Meter IAMBIC = foot("iambic", Stress.LOW, Stress.HIGH);
+    Meter TROCHAIC = foot("trochaic", Stress.HIGH, Stress.LOW);
+    Meter ANAPESTIC = foot("anapestic", Stress.LOW, Stress.LOW, Stress.HIGH);
+    Meter DACTYLIC = foot("dactylic", Stress.HIGH, Stress.LOW, Stress.LOW);
+
+    // the meters scanned for by default; on a tie, the earlier one wins
+    List<Meter> DEFAULTS = List.of(IAMBIC, TROCHAIC, ANAPESTIC, DACTYLIC);
+
+    /**
+     * Get the meter's name, as an adjective (like "iambic")
+     * @return the meter's name
+     */
+    String name();
+
+    /**
+     * Get the number of states in the meter's automaton
+     * @return the number of states
+     */
+    int states();
+
+    /**
+     * Check whether a syllable fits the meter
+     * @param state the automaton's state
+     * @param stress the syllable's stress (never silent)
+     * @return whether the syllable fits
+     */
+    boolean fits(int state, Stress stress);
+
+    /**
+     * Get the automaton's state after a syllable
+     * @param state the automaton's state before the syllable
+     * @param stress the syllable's stress (never silent)
+     * @return the state after the syllable; returning to 0 after a syllable that fits completes a foot
+     */
+    int next(int state, Stress stress);
+
+    /**
+     * Make a meter that repeats a single foot. A syllable that fits moves on to the next syllable of the foot; one
+     * that doesn't leaves the meter waiting for the same syllable, so an iambic line goes on expecting the opposite
+     * of the syllable it just read.
+     * @param name the meter's name
+     * @param foot the stresses of the foot
+     * @return the meter
+     */
+    static Meter foot(String name, Stress... foot) {
+        var pattern = foot.clone();
+        return new Meter() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public int states() {
+                return pattern.length;
+            }
+
+            @Override
+            public boolean fits(int state, Stress stress) {
+                return pattern[state] == stress;
+            }
+
+            @Override
+            public int next(int state, Stress stress) {
+                return fits(state, stress) ? (state + 1) % pattern.length : state;
+            }
+
+            @Override
+            public String toString() {
+                return name;
+            }
+        };
+    }
+}
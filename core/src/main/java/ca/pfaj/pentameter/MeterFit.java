@@ -0,0 +1,42 @@
+package ca.pfaj.pentameter;
+
+/**
+ * How well a phrase fits a meter, with the pronounciation that fits it best.
+ * @param meter the meter
+ * @param feet the number of complete feet, up to {@link MeterScanner#MAX_FEET} + 1 for anything longer
+ * @param complete whether the phrase ends at the end of a foot
+ * @param numIncorrectSyllables the number of syllables that don't fit the meter
+ * @param pronounciation the pronounciation that fits best
+ */
+record MeterFit(Meter meter, int feet, boolean complete, int numIncorrectSyllables, PronouncedPhrase pronounciation) {
+    static final String[] LENGTHS = {
+            null, "monometer", "dimeter", "trimeter", "tetrameter", "pentameter", "hexameter", "heptameter", "octameter",
+    };
+
+    /**
+     * Check whether every syllable fits the meter and the phrase is made of whole feet
+     * @return whether the phrase is exactly in this meter
+     */
+    boolean isExact() {
+        return numIncorrectSyllables == 0 && complete && feet > 0 && feet <= MeterScanner.MAX_FEET;
+    }
+
+    /**
+     * Describe the fit, like "iambic pentameter"
+     * @return the description
+     */
+    @Override
+    public String toString() {
+        // everything past the longest named length is counted together
+        var length = feet > MeterScanner.MAX_FEET ? "more than " + MeterScanner.MAX_FEET + " feet"
+                : feet > 0 ? LENGTHS[feet] : "0 feet";
+        var description = meter.name() + " " + length;
+        if (!complete) {
+            description += " (incomplete foot)";
+        }
+        if (numIncorrectSyllables > 0) {
+            description += ", " + numIncorrectSyllables + " incorrect syllables";
+        }
+        return description;
+    }
+}
@@ -0,0 +1,300 @@
+package ca.pfaj.pentameter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Chooses the pronounciation of a list of words that best fits each of a set of meters, in a single pass.
+ * <p>
+ * Rather than trying every combination of word pronounciations, the scanner keeps, for each state, the lowest
+ * number of incorrect syllables that can reach it. A state is a meter, the state of that meter's automaton, and the
+ * number of complete feet so far. Counts past {@link #MAX_FEET} are merged into one, so the work per word doesn't
+ * grow with the length of the message, and every meter is scanned in the same pass. The chosen pronounciations are
+ * recovered by backtracking, so only the costs for the current word are kept, along with an int per word and state
+ * saying how that state was reached.
+ * <p>
+ * A full scan takes time in proportion to the number of words and their pronounciations, so a scan can be given a
+ * {@link Budget}; when it runs out, the scanner falls back to choosing each word's pronounciation greedily.
+ */
+class MeterScanner {
+    static final int PENTAMETER_SYLLABLES = 10;
+    static final int PENTAMETER_FEET = 5;
+    // the longest line with a name (octameter); longer lines are all counted as one more than this
+    static final int MAX_FEET = 8;
+    static final int FOOT_COUNTS = MAX_FEET + 2;
+    static final int UNREACHED = Integer.MAX_VALUE;
+    // a back-pointer keeps which pronounciation a word was given in its low bits and the state before it in the rest,
+    // so a word can have at most this many pronounciations for a full scan; no word comes close
+    static final int OPTION_BITS = 16;
+    static final int MAX_OPTIONS = (1 << OPTION_BITS) - 1;
+
+    private final List<Meter> meters;
+    // for each state: its meter, that meter's automaton state, and the number of complete feet
+    private final int[] stateMeter;
+    private final int[] statePosition;
+    private final int[] stateFeet;
+    // the first state of each meter
+    private final int[] meterStart;
+
+    /**
+     * @param meters the meters to scan for; on a tie, the earlier one is preferred
+     */
+    MeterScanner(List<Meter> meters) {
+        this.meters = List.copyOf(meters);
+        meterStart = new int[this.meters.size() + 1];
+        for (int m = 0; m < this.meters.size(); m++) {
+            meterStart[m + 1] = meterStart[m] + this.meters.get(m).states() * FOOT_COUNTS;
+        }
+        int numStates = meterStart[this.meters.size()];
+        if (numStates > Integer.MAX_VALUE >>> OPTION_BITS) {
+            throw new IllegalArgumentException("too many meters");
+        }
+        stateMeter = new int[numStates];
+        statePosition = new int[numStates];
+        stateFeet = new int[numStates];
+        for (int m = 0; m < this.meters.size(); m++) {
+            for (int s = meterStart[m]; s < meterStart[m + 1]; s++) {
+                stateMeter[s] = m;
+                statePosition[s] = (s - meterStart[m]) / FOOT_COUNTS;
+                stateFeet[s] = (s - meterStart[m]) % FOOT_COUNTS;
+            }
+        }
+    }
+
+    int state(int meter, int position, int feet) {
+        return meterStart[meter] + position * FOOT_COUNTS + feet;
+    }
+
+    /**
+     * Find the best fit of the words to each meter. For each meter, the fewest incorrect syllables wins; on a tie,
+     * pentameter is preferred, then any line of whole feet.
+     * @param words the words to scan
+     * @return the best fit for each meter, in the order the meters were given
+     */
+    List<MeterFit> scanAll(List<Word> words) {
+        return scanAll(words, Long.MAX_VALUE, Long.MAX_VALUE).orElseThrow();
+    }
+
+    /**
+     * Scan the words within a budget, falling back to cheaper scans if the budget runs out
+     * @param words the words to scan
+     * @param budget the budget
+     * @param start when the message started being analysed, from {@link System#nanoTime()}
+     * @return the scansion, which records how it was scanned
+     */
+    Scansion scan(List<Word> words, Budget budget, long start) {
+        if (words.size() > budget.maxTokens()) {
+            return new Scansion(scanGreedy(words, true), Scansion.Mode.UNSCANNED);
+        }
+        // saturate rather than overflow, so an unlimited budget stays unlimited
+        long deadline = budget.maxNanos() > Long.MAX_VALUE - start ? Long.MAX_VALUE : start + budget.maxNanos();
+        return scanAll(words, budget.maxWork(), deadline)
+                .map(Scansion::new)
+                .orElseGet(() -> new Scansion(scanGreedy(words, false), Scansion.Mode.GREEDY));
+    }
+
+    /**
+     * Find the best fit of the words to each meter, giving up if it takes too long
+     * @param words the words to scan
+     * @param maxWork the most steps to take, where a step is trying one syllable from one state
+     * @param deadline when to give up, from {@link System#nanoTime()}; checked after each word
+     * @return the best fit for each meter, or nothing if the scan gave up
+     */
+    Optional<List<MeterFit>> scanAll(List<Word> words, long maxWork, long deadline) {
+        // every word takes at least a step, so a line longer than the budget can be given up on before anything is
+        // allocated for it
+        if (words.size() > maxWork) {
+            return Optional.empty();
+        }
+        // copy to an array, since the words may be a LinkedList and backtracking needs random access
+        var wordArray = words.toArray(new Word[0]);
+        int n = wordArray.length;
+        int numStates = stateMeter.length;
+        // cost[s] is the fewest incorrect syllables over the words so far that ends in state s; only the row for the
+        // words so far and the row for the next word are kept
+        var cost = new int[numStates];
+        var nextCost = new int[numStates];
+        // back[i][s] is how state s was reached after i words: the state before, and which of word i - 1's
+        // pronounciations was used (see pack); each row is only allocated once the scan gets that far
+        var back = new int[n + 1][];
+        var options = new Pronounciation[n][];
+        Arrays.fill(cost, UNREACHED);
+        for (int m = 0; m < meters.size(); m++) {
+            cost[state(m, 0, 0)] = 0;
+        }
+
+        long work = 0;
+        for (int i = 0; i < n; i++) {
+            var word = wordArray[i];
+            options[i] = word.pronounciationOptions().toArray(new Pronounciation[0]);
+            if (options[i].length > MAX_OPTIONS) {
+                return Optional.empty();
+            }
+            var from = new int[numStates];
+            back[i + 1] = from;
+            Arrays.fill(nextCost, UNREACHED);
+            // the steps taken from each reachable state
+            int steps = 0;
+            for (var option : options[i]) {
+                steps += option.stress().size() + 1;
+            }
+            for (int s = 0; s < numStates; s++) {
+                if (cost[s] == UNREACHED) {
+                    continue;
+                }
+                work += steps;
+                int m = stateMeter[s];
+                var meter = meters.get(m);
+                for (int o = 0; o < options[i].length; o++) {
+                    // walk the option's syllables from this state
+                    int position = statePosition[s];
+                    int feet = stateFeet[s];
+                    int errors = cost[s];
+                    for (var syllable : options[i][o].stress()) {
+                        if (syllable == Stress.SILENT) {
+                            continue;
+                        }
+                        boolean fits = meter.fits(position, syllable);
+                        if (!fits) {
+                            errors++;
+                        }
+                        position = meter.next(position, syllable);
+                        if (fits && position == 0) {
+                            feet = Math.min(feet + 1, MAX_FEET + 1);
+                        }
+                    }
+                    int next = state(m, position, feet);
+                    if (errors < nextCost[next]) {
+                        nextCost[next] = errors;
+                        from[next] = pack(s, o);
+                    }
+                }
+            }
+            var swap = cost;
+            cost = nextCost;
+            nextCost = swap;
+            if (work > maxWork || (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0)) {
+                return Optional.empty();
+            }
+        }
+
+        var fits = new ArrayList<MeterFit>(meters.size());
+        for (int m = 0; m < meters.size(); m++) {
+            // pick the meter's end state with the fewest errors, preferring pentameter and then whole feet on a tie
+            int best = -1;
+            for (int s = meterStart[m]; s < meterStart[m + 1]; s++) {
+                if (cost[s] == UNREACHED) {
+                    continue;
+                }
+                if (best == -1 || cost[s] < cost[best] || (cost[s] == cost[best] && rank(s) < rank(best))) {
+                    best = s;
+                }
+            }
+
+            // backtrack to recover the pronounciation chosen for each word
+            var chosen = new PronouncedWord[n];
+            int s = best;
+            for (int j = n; j > 0; j--) {
+                int packed = back[j][s];
+                chosen[j - 1] = new PronouncedWord(wordArray[j - 1].name(), options[j - 1][packed & MAX_OPTIONS]);
+                s = packed >>> OPTION_BITS;
+            }
+            var pronounciation = new PronouncedPhrase(new ArrayList<>(Arrays.asList(chosen)));
+            fits.add(new MeterFit(meters.get(m), stateFeet[best], statePosition[best] == 0, cost[best],
+                    pronounciation));
+        }
+        return Optional.of(fits);
+    }
+
+    /**
+     * Pack a back-pointer: the state a word started from, and which of its pronounciations it was given
+     */
+    private static int pack(int state, int option) {
+        return state << OPTION_BITS | option;
+    }
+
+    /**
+     * Fit the words to each meter one word at a time, choosing each word's pronounciation to best fit the words
+     * before it. Takes time in proportion to the number of pronounciations, but can miss the best fit, since a
+     * pronounciation that fits now may leave the rest of the line out of step.
+     * @param words the words to scan
+     * @param firstOnly whether to just use each word's first pronounciation
+     * @return a fit for each meter, in the order the meters were given
+     */
+    List<MeterFit> scanGreedy(List<Word> words, boolean firstOnly) {
+        var fits = new ArrayList<MeterFit>(meters.size());
+        for (var meter : meters) {
+            int position = 0;
+            int feet = 0;
+            int errors = 0;
+            var chosen = new ArrayList<PronouncedWord>(words.size());
+            for (var word : words) {
+                Pronounciation bestOption = null;
+                int bestErrors = UNREACHED;
+                int bestPosition = 0;
+                int bestFeet = 0;
+                for (var option : word.pronounciationOptions()) {
+                    int optionPosition = position;
+                    int optionFeet = feet;
+                    int optionErrors = 0;
+                    for (var syllable : option.stress()) {
+                        if (syllable == Stress.SILENT) {
+                            continue;
+                        }
+                        boolean fit = meter.fits(optionPosition, syllable);
+                        if (!fit) {
+                            optionErrors++;
+                        }
+                        optionPosition = meter.next(optionPosition, syllable);
+                        if (fit && optionPosition == 0) {
+                            optionFeet = Math.min(optionFeet + 1, MAX_FEET + 1);
+                        }
+                    }
+                    if (optionErrors < bestErrors) {
+                        bestOption = option;
+                        bestErrors = optionErrors;
+                        bestPosition = optionPosition;
+                        bestFeet = optionFeet;
+                    }
+                    if (firstOnly) {
+                        break;
+                    }
+                }
+                chosen.add(new PronouncedWord(word.name(), bestOption));
+                position = bestPosition;
+                feet = bestFeet;
+                errors += bestErrors;
+            }
+            fits.add(new MeterFit(meter, feet, position == 0, errors, new PronouncedPhrase(chosen)));
+        }
+        return fits;
+    }
+
+    /**
+     * Rank an end state among those with the same number of errors; lower is better
+     */
+    private int rank(int state) {
+        if (statePosition[state] != 0) {
+            return 2;
+        }
+        return stateFeet[state] == PENTAMETER_FEET ? 0 : 1;
+    }
+
+    /**
+     * Pick the best of several fits: the fewest incorrect syllables, then a line of whole feet, then the earliest
+     * @param fits the fits
+     * @return the best fit
+     */
+    static MeterFit best(List<MeterFit> fits) {
+        MeterFit best = null;
+        for (var fit : fits) {
+            if (best == null || fit.numIncorrectSyllables() < best.numIncorrectSyllables()
+                    || (fit.numIncorrectSyllables() == best.numIncorrectSyllables() && fit.isExact() && !best.isExact())) {
+                best = fit;
+            }
+        }
+        return best;
+    }
+}
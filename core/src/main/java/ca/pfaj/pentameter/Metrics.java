@@ -0,0 +1,161 @@
+package ca.pfaj.pentameter;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and histograms of what the plugin spends its time on. Everything is lock-free, so it can be recorded from
+ * any number of chat threads at once.
+ */
+final class Metrics {
+    /**
+     * The stages a chat message goes through.
+     */
+    enum Stage {
+        // waiting for a thread to analyse the message on
+        QUEUE,
+        // splitting a message into words, including looking them up
+        TOKENIZE,
+        // looking a single word up in the dictionary
+        LOOKUP,
+        SCAN,
+        RENDER,
+        // delivering a tick's batch of messages on the main thread
+        BROADCAST,
+    }
+
+    private final Map<Stage, Histogram> latencies = new EnumMap<>(Stage.class);
+    // how many messages were scanned in each mode
+    private final Map<Scansion.Mode, LongAdder> modes = new EnumMap<>(Scansion.Mode.class);
+    // how many pronounciations each message had, if every combination had been tried
+    final Histogram combinations = new Histogram();
+    final LongAdder messages = new LongAdder();
+    final LongAdder words = new LongAdder();
+    // words that weren't in the dictionary and couldn't be split into words that are, so their pronounciation was
+    // guessed from their spelling
+    final LongAdder fallbacks = new LongAdder();
+
+    Metrics() {
+        for (var stage : Stage.values()) {
+            latencies.put(stage, new Histogram());
+        }
+        for (var mode : Scansion.Mode.values()) {
+            modes.put(mode, new LongAdder());
+        }
+    }
+
+    /**
+     * Record how long a stage took
+     * @param stage the stage
+     * @param start when the stage started, from {@link System#nanoTime()}
+     */
+    void time(Stage stage, long start) {
+        latencies.get(stage).record(System.nanoTime() - start);
+    }
+
+    /**
+     * Count a message scanned in some mode
+     * @param mode the mode
+     */
+    void scanned(Scansion.Mode mode) {
+        modes.get(mode).increment();
+    }
+
+    /**
+     * Get how many messages were scanned in some mode
+     * @param mode the mode
+     * @return the number of messages
+     */
+    long scans(Scansion.Mode mode) {
+        return modes.get(mode).sum();
+    }
+
+    /**
+     * Get the histogram of a stage's latencies, in nanoseconds
+     * @param stage the stage
+     * @return the histogram
+     */
+    Histogram latency(Stage stage) {
+        return latencies.get(stage);
+    }
+
+    /**
+     * A histogram of non-negative values, in power-of-two buckets: bucket 0 counts zeroes, and bucket i counts values
+     * from 2^(i-1) up to 2^i - 1. Percentiles are only as precise as the buckets.
+     */
+    static final class Histogram {
+        static final int BUCKETS = Long.SIZE + 1;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long value) {
+            value = Math.max(value, 0);
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        /**
+         * Take a snapshot of the histogram; values recorded while it's taken may or may not be included
+         * @return the snapshot
+         */
+        Snapshot snapshot() {
+            var counts = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                count += counts[i];
+            }
+            return new Snapshot(counts, count, sum.sum(), max.get());
+        }
+    }
+
+    /**
+     * The contents of a histogram at some point in time.
+     * @param buckets the count in each bucket
+     * @param count the number of values
+     * @param sum the sum of the values
+     * @param max the largest value ever recorded
+     */
+    record Snapshot(long[] buckets, long count, long sum, long max) {
+        double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Estimate a percentile, as the upper bound of the bucket it falls in
+         * @param percentile the percentile, from 0 to 100
+         * @return the estimate, or 0 if the histogram is empty
+         */
+        long percentile(double percentile) {
+            long rank = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    return i == 0 ? 0 : i == Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Get what was recorded since an earlier snapshot of the same histogram; the maximum is still all-time
+         * @param earlier the earlier snapshot
+         * @return the difference
+         */
+        Snapshot since(Snapshot earlier) {
+            var counts = Arrays.copyOf(buckets, buckets.length);
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] -= earlier.buckets[i];
+            }
+            return new Snapshot(counts, count - earlier.count, sum - earlier.sum, max);
+        }
+    }
+}
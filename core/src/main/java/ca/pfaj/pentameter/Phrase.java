@@ -0,0 +1,217 @@
+package ca.pfaj.pentameter;
+
+import net.md_5.bungee.api.chat.BaseComponent;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Suppliers.memoize;
+import static com.google.common.collect.Sets.cartesianProduct;
+
+/**
+ * A list of words
+ */
+public final class Phrase {
+    private static final Word SPACE = new Word(" ", Dictionary.SILENT);
+    private static final Word DASH = new Word("-", Dictionary.SILENT);
+    static final MeterScanner SCANNER = new MeterScanner(Meter.DEFAULTS);
+
+    private final List<Word> words;
+    private final Dictionary dictionary;
+    // scanned on first use, then shared by everything that asks about this phrase's meter
+    private final Supplier<Scansion> scansion;
+
+    public Phrase(List<Word> words, Dictionary dictionary) {
+        this.words = words;
+        this.dictionary = dictionary;
+        this.scansion = memoize(() -> new Scansion(SCANNER.scanAll(this.words)));
+    }
+
+    public Phrase(String words, Dictionary dictionary) {
+        this(Phrase.parseWords(words, dictionary), dictionary);
+    }
+
+    public List<Word> words() {
+        return words;
+    }
+
+    public Dictionary dictionary() {
+        return dictionary;
+    }
+
+    static List<Word> parseWords(String phrase, Dictionary dictionary) {
+        List<Word> parsedWords = new ArrayList<>();
+        // deconstruct the string, treating spaces and dashes as joiners; words that aren't found are assumed to be
+        // one syllable, unless the dictionary guesses otherwise
+        new Tokenizer().tokenize(phrase, dictionary, new Tokenizer.Sink() {
+            @Override
+            public void word(int start, int end, Set<Pronounciation> pronounciations) {
+                parsedWords.add(new Word(phrase.substring(start, end), pronounciations));
+            }
+
+            @Override
+            public void joiner(char joiner) {
+                parsedWords.add(joiner == ' ' ? SPACE : DASH);
+            }
+        });
+        return parsedWords;
+    }
+
+    public boolean isIambic() {
+        return scansion().isIambic();
+    }
+
+    public boolean isIambicPentameter() {
+        return scansion().isIambicPentameter();
+    }
+
+    /**
+     * Get all unique pronounciations of this phrase. The number of pronounciations grows exponentially with the
+     * number of words, so this is only suitable for short phrases; use {@link #scan()} to choose a pronounciation.
+     * @return all unique pronounciations of this phrase
+     */
+    public Set<PronouncedPhrase> uniqueProunounciations() {
+        /*
+         * The set of all unique pronounciations of this phrase is equal to the
+         * cartesian product of the unique pronounciations of all the words.
+         * ex: A phrase with three words (A, B, C). A has two pronounciations (i and ii),
+         *     B has two pronounciations (i and ii), and C has three
+         *     pronounciations (i, ii, iii). The possible unique pronounciations are
+         *     [Ai  ]       [Bi  ]       [Ci  ]
+         *     [Aii ]   x   [Bii ]   x   [Cii ]
+         *                               [Ciii]
+         *     = [AiBiCi, AiBiCii, AiBiCiii, AiBiiCi, AiBiiCii, AiBiiCiii,
+         *        AiiBiCi, AiiBiCii, AiiBiCiii, AiiBiiCi, AiiBiiCii, AiiBiiCiii]
+         */
+        // get unique pronounciation for each word
+        List<Set<PronouncedWord>> uniqueWords = new LinkedList<>();
+        for (var word : words) {
+            uniqueWords.add(word.uniquePronounciations());
+        }
+        // get cartesian product of the unique pronounciations
+        return cartesianProduct(uniqueWords).stream().map(PronouncedPhrase::new).collect(Collectors.toSet());
+    }
+
+    /**
+     * Scan the phrase for every meter, choosing its best iambic pronounciation: iambic pentameter if possible, then
+     * iambic, then the one with the fewest incorrect syllables. The phrase is only scanned once, however many times
+     * this is called.
+     * @return the phrase's scansion
+     */
+    public Scansion scansion() {
+        return scansion.get();
+    }
+
+    /**
+     * Choose the phrase's best pronounciation.
+     * @return the chosen pronounciation
+     * @see #scansion()
+     */
+    public PronouncedPhrase scan() {
+        return scansion().pronounciation();
+    }
+
+    /**
+     * Colour the phrase, choosing a pronounciation that is iambic if possible.
+     */
+    public BaseComponent[] colour() {
+        return scansion().colour();
+    }
+
+    /**
+     * Get the phrase's iambic pronounciation, if it exists. If multiple exist, choose one.
+     * @return the phrase's iambic pronounciation, if it exists
+     */
+    public Optional<PronouncedPhrase> getIambicPronounciation() {
+        return Optional.of(scan()).filter(PronouncedPhrase::isIambic);
+    }
+
+    /**
+     * Get the phrase's iambic pentameter pronounciation, if it exists. If multiple exists, choose one.
+     * @return the phrase's iambic pentameter pronounciation, if it exists
+     */
+    public Optional<PronouncedPhrase> getIambicPentameterPronounciation() {
+        // the scanner prefers pentameter, so if the chosen pronounciation isn't pentameter, none is
+        return Optional.of(scan()).filter(PronouncedPhrase::isIambicPentameter);
+    }
+}
+
+/**
+ * A phrase with a single, chosen pronounciation for all the words.
+ */
+class PronouncedPhrase {
+    List<PronouncedWord> words;
+    int numIncorrectSyllables = 0;
+    int numSyllables = 0;
+    boolean iambic = true;
+
+    public PronouncedPhrase(List<PronouncedWord> words) {
+        this.words = words;
+        // check if phrase is iambic
+        var expected = Stress.LOW;
+        for (var syllable : getStress()) {
+            numSyllables++;
+            if (syllable == Stress.HIGH) {
+                if (expected == Stress.HIGH) {
+                    // expected high, found high
+                    expected = Stress.LOW;
+                } else {
+                    // expected low, found high
+                    numIncorrectSyllables++;
+                    iambic = false;
+                }
+            } else {
+                if (expected == Stress.HIGH) {
+                    // expected high, found low
+                    numIncorrectSyllables++;
+                    iambic = false;
+                } else {
+                    // expected low, found low
+                    expected = Stress.HIGH;
+                }
+            }
+        }
+    }
+
+    public int getNumIncorrectSyllables() {
+        return numIncorrectSyllables;
+    }
+
+    public boolean isIambic() {
+        return iambic;
+    }
+
+    public boolean isIambicPentameter() {
+        return this.isIambic() && numSyllables == MeterScanner.PENTAMETER_SYLLABLES;
+    }
+
+    /**
+     * Get all of the syllables in this phrase in a single list, ignoring silent syllables
+     * @return all of the syllables in this phrase, ignoring silent syllables
+     */
+    public List<Stress> getStress() {
+        List<Stress> stress = new LinkedList<>();
+        for (var word : words) {
+            for (var syllable : word.pronounciation().stress()) {
+                if (syllable != Stress.SILENT) {
+                    stress.add(syllable);
+                }
+            }
+        }
+        return stress;
+    }
+
+    /**
+     * Colour the phrase, one syllable at a time
+     * @return the coloured phrase
+     * @see Renderer
+     */
+    public BaseComponent[] colour() {
+        return Renderer.render(this);
+    }
+}
\ No newline at end of file
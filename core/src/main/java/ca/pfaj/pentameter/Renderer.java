@@ -0,0 +1,215 @@
+package ca.pfaj.pentameter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.md_5.bungee.api.ChatColor;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.ComponentBuilder;
+import net.md_5.bungee.api.chat.HoverEvent;
+import net.md_5.bungee.api.chat.TextComponent;
+import net.md_5.bungee.api.chat.hover.content.Text;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Colours pronounced phrases, one component per syllable, with a hover explaining what stress was expected and what
+ * was found.
+ * <p>
+ * Each word is rendered once for each way it can appear: its text, its pronounciation, the stress expected on its
+ * first syllable, and whether the line is bold. The rendered components are cached, so a phrase of familiar words
+ * skips building its hovers; each message gets its own copies of them, since callers are free to change them.
+ * <p>
+ * A word that doesn't fit the meter can also suggest, in its hover, words that would; see {@link Substitutions}.
+ */
+final class Renderer {
+    static final long WORD_CACHE_SIZE = 10_000;
+
+    /**
+     * The four ways a syllable can be coloured, by the stress expected and the stress found.
+     */
+    enum Template {
+        EXPECTED_LOW_FOUND_LOW(ChatColor.GREEN, "expected unstressed syllable, found unstressed syllable", true),
+        EXPECTED_HIGH_FOUND_LOW(ChatColor.LIGHT_PURPLE, "expected stressed syllable, found unstressed syllable",
+                false),
+        EXPECTED_LOW_FOUND_HIGH(ChatColor.DARK_PURPLE, "expected unstressed syllable, found stressed syllable",
+                false),
+        EXPECTED_HIGH_FOUND_HIGH(ChatColor.DARK_GREEN, "expected stressed syllable, found stressed syllable", true);
+
+        final ChatColor colour;
+        final String hover;
+        final boolean fits;
+
+        Template(ChatColor colour, String hover, boolean fits) {
+            this.colour = colour;
+            this.hover = ": " + hover;
+            this.fits = fits;
+        }
+
+        static Template of(Stress expected, Stress found) {
+            if (found == Stress.LOW) {
+                return expected == Stress.LOW ? EXPECTED_LOW_FOUND_LOW : EXPECTED_HIGH_FOUND_LOW;
+            } else {
+                return expected == Stress.LOW ? EXPECTED_LOW_FOUND_HIGH : EXPECTED_HIGH_FOUND_HIGH;
+            }
+        }
+
+        /**
+         * Render a syllable with this template
+         * @param fragment the syllable's text
+         * @param bold whether to make it bold
+         * @param substitutes words that would fit the meter in place of the syllable's word, shown if the syllable
+         *                    doesn't fit
+         * @return the syllable's component
+         */
+        BaseComponent render(String fragment, boolean bold, List<String> substitutes) {
+            var component = new TextComponent(fragment);
+            component.setColor(colour);
+            var text = fits || substitutes.isEmpty() ? fragment + hover
+                    : fragment + hover + "\ntry " + String.join(", ", substitutes);
+            component.setHoverEvent(new HoverEvent(HoverEvent.Action.SHOW_TEXT,
+                    new Text(new ComponentBuilder(text).color(colour).create())));
+            if (bold) {
+                component.setBold(true);
+            }
+            return component;
+        }
+    }
+
+    private record WordKey(String name, Pronounciation pronounciation, Stress expected, boolean bold,
+                           List<String> substitutes) {
+    }
+
+    private static final Cache<WordKey, BaseComponent[]> WORDS =
+            CacheBuilder.newBuilder().maximumSize(WORD_CACHE_SIZE).recordStats().build();
+
+    private Renderer() {
+    }
+
+    /**
+     * Colour a phrase according to its pronounciation, in bold if it's iambic pentameter
+     * @param phrase the phrase
+     * @return the coloured phrase
+     */
+    static BaseComponent[] render(PronouncedPhrase phrase) {
+        return render(phrase, Substitutions.NONE);
+    }
+
+    /**
+     * Colour a phrase according to its pronounciation, in bold if it's iambic pentameter, suggesting words in place of
+     * those that don't fit the meter
+     * @param phrase the phrase
+     * @param substitutions where to find the suggestions
+     * @return the coloured phrase
+     */
+    static BaseComponent[] render(PronouncedPhrase phrase, Substitutions substitutions) {
+        long deadline = substitutions.deadline();
+        boolean bold = phrase.isIambicPentameter();
+        var rendered = new BaseComponent[phrase.words.size()][];
+        int total = 0;
+        var expected = Stress.LOW; // expected syllable stress
+        int i = 0;
+        for (var word : phrase.words) {
+            // a word that doesn't fit would if it alternated from the expected stress
+            long pattern = pattern(word.pronounciation());
+            long fitting = StressIndex.iambic(expected, StressPatterns.length(pattern));
+            var substitutes = pattern == fitting ? List.<String>of()
+                    : substitutions.suggest(word.name(), fitting, deadline);
+            var key = new WordKey(word.name(), word.pronounciation(), expected, bold, substitutes);
+            try {
+                rendered[i] = WORDS.get(key, () -> renderWord(key));
+            } catch (ExecutionException e) {
+                // rendering doesn't throw checked exceptions
+                throw new IllegalStateException(e);
+            }
+            total += rendered[i].length;
+            expected = expectedAfter(word.pronounciation(), expected);
+            i++;
+        }
+        var coloured = new BaseComponent[total];
+        int position = 0;
+        for (var components : rendered) {
+            for (var component : components) {
+                coloured[position++] = component.duplicate();
+            }
+        }
+        return coloured;
+    }
+
+    /**
+     * Get the stress expected after a word
+     * @param pronounciation the word's pronounciation
+     * @param expected the stress expected on the word's first syllable
+     * @return the stress expected on the next word's first syllable
+     */
+    static Stress expectedAfter(Pronounciation pronounciation, Stress expected) {
+        for (var syllable : pronounciation.stress()) {
+            if (syllable == Stress.LOW) {
+                expected = Stress.HIGH;
+            } else if (syllable == Stress.HIGH) {
+                expected = Stress.LOW;
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * Pack the stress pattern of a pronounciation, ignoring silent syllables
+     * @param pronounciation the pronounciation
+     * @return the packed pattern
+     * @see StressPatterns#pack
+     */
+    static long pattern(Pronounciation pronounciation) {
+        long packed = 0;
+        int syllables = 0;
+        for (var syllable : pronounciation.stress()) {
+            if (syllable != Stress.SILENT && syllables < StressPatterns.MAX_SYLLABLES) {
+                if (syllable == Stress.HIGH) {
+                    packed |= 1L << (6 + syllables);
+                }
+                syllables++;
+            }
+        }
+        return packed | syllables;
+    }
+
+    private static BaseComponent[] renderWord(WordKey key) {
+        var name = key.name();
+        var stress = key.pronounciation().stress();
+        var length = name.length();
+        var numSyllables = stress.size();
+        // a word without syllables has nothing to colour
+        if (numSyllables == 0) {
+            var component = new TextComponent(name);
+            if (key.bold()) {
+                component.setBold(true);
+            }
+            return new BaseComponent[]{component};
+        }
+        var syllableSize = length / numSyllables;
+        var components = new BaseComponent[numSyllables];
+        var expected = key.expected();
+        // break the word up into its constituent syllables in a naive way; the last fragment may be larger
+        for (int i = 0; i < numSyllables; i++) {
+            var fragment = i < numSyllables - 1
+                    ? name.substring(i * syllableSize, (i + 1) * syllableSize)
+                    : name.substring(i * syllableSize);
+            var syllable = stress.get(i);
+            if (syllable == Stress.SILENT) {
+                var component = new TextComponent(fragment);
+                if (key.bold()) {
+                    component.setBold(true);
+                }
+                components[i] = component;
+            } else {
+                components[i] = Template.of(expected, syllable).render(fragment, key.bold(), key.substitutes());
+                expected = syllable == Stress.LOW ? Stress.HIGH : Stress.LOW;
+            }
+        }
+        return components;
+    }
+
+    static Cache<?, ?> wordCache() {
+        return WORDS;
+    }
+}
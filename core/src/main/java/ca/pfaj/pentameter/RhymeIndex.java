@@ -0,0 +1,264 @@
+package ca.pfaj.pentameter;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Which words rhyme, read from the phonemes in the CMU Pronouncing Dictionary. Two words rhyme if they sound the same
+ * from their last stressed vowel onward (LATE and DEBATE end in EY T); that ending is the word's rhyme key. Keys are
+ * interned as small ids, so telling whether two words rhyme is comparing two numbers, and the words with each key
+ * are kept together, so finding a word's rhymes is a lookup.
+ * <p>
+ * The words are {@link SortedWords}, with each word's key id alongside. Only a word's first pronounciation is used. Words are stored cleaned, as chat's words are looked up, so
+ * DON'T is found as DONT; if cleaning makes two words the same, the first one in the dictionary is kept.
+ */
+final class RhymeIndex {
+    // the key of a word that isn't in the index
+    static final int NO_RHYME = -1;
+    // the position of a word that isn't in the index
+    static final int NOT_FOUND = SortedWords.NOT_FOUND;
+    static final RhymeIndex EMPTY = new RhymeIndex(SortedWords.EMPTY, new int[0], new String[0]);
+
+    private final SortedWords words;
+    private final int[] keyIds;
+    private final String[] keys;
+    // the words with key k are members[keyStart[k]] up to members[keyStart[k + 1]]
+    private final int[] keyStart;
+    private final int[] members;
+
+    private RhymeIndex(SortedWords words, int[] keyIds, String[] keys) {
+        this.words = words;
+        this.keyIds = keyIds;
+        this.keys = keys;
+        keyStart = new int[keys.length + 1];
+        for (int id : keyIds) {
+            keyStart[id + 1]++;
+        }
+        for (int k = 0; k < keys.length; k++) {
+            keyStart[k + 1] += keyStart[k];
+        }
+        members = new int[keyIds.length];
+        var next = Arrays.copyOf(keyStart, keys.length);
+        for (int i = 0; i < keyIds.length; i++) {
+            members[next[keyIds[i]]++] = i;
+        }
+    }
+
+    /**
+     * Write the index to an {@link IndexSnapshot}
+     * @param out where to write it
+     * @throws IOException if it can't be written
+     */
+    void write(DataOutput out) throws IOException {
+        words.write(out);
+        IndexSnapshot.writeArray(out, keyIds);
+        out.writeInt(keys.length);
+        for (var key : keys) {
+            IndexSnapshot.writeArray(out, key.getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    /**
+     * Read an index written by {@link #write}
+     * @param in the snapshot, positioned where the index was written, and left after it
+     * @return the index
+     */
+    static RhymeIndex read(ByteBuffer in) {
+        var words = SortedWords.read(in);
+        var keyIds = IndexSnapshot.readInts(in);
+        var keys = new String[in.getInt()];
+        for (int k = 0; k < keys.length; k++) {
+            keys[k] = new String(IndexSnapshot.readBytes(in), StandardCharsets.ISO_8859_1);
+        }
+        return new RhymeIndex(words, keyIds, keys);
+    }
+
+    /**
+     * Build the index from the text of the dictionary
+     * @param path the dictionary file
+     * @return the index
+     * @throws IOException if the file can't be read
+     */
+    static RhymeIndex parse(Path path) throws IOException {
+        var builder = new Builder();
+        try (var lines = Files.lines(path, StandardCharsets.ISO_8859_1)) {
+            lines.forEachOrdered(builder);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds an index from the lines of the dictionary as they're read, so it can be built while the dictionary is
+     * being downloaded.
+     */
+    static final class Builder implements Consumer<String> {
+        private final List<byte[]> words = new ArrayList<>();
+        private final List<Integer> wordKeys = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final Set<String> seen = new HashSet<>();
+
+        /**
+         * Add a line of the dictionary (like DEBATE  D IH0 B EY1 T)
+         * @param line the line
+         */
+        @Override
+        public void accept(String line) {
+            // ignore non-words, and alternative pronounciations like WOJCIECH(1)
+            int space = line.indexOf(' ');
+            if (line.isEmpty() || !Character.isLetter(line.charAt(0)) || space < 0
+                    || line.lastIndexOf('(', space) > 0) {
+                return;
+            }
+            var word = Dictionary.cleanWord(line.substring(0, space));
+            if (word.isEmpty() || !seen.add(word)) {
+                return;
+            }
+            words.add(word.getBytes(StandardCharsets.ISO_8859_1));
+            wordKeys.add(ids.computeIfAbsent(rhymeKey(line.substring(space + 1).trim()), key -> ids.size()));
+        }
+
+        /**
+         * Build the index from the lines added so far
+         * @return the index
+         */
+        RhymeIndex build() {
+            var order = SortedWords.order(words);
+            var keyIds = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                keyIds[i] = wordKeys.get(order[i]);
+            }
+            var keys = new String[ids.size()];
+            ids.forEach((key, id) -> keys[id] = key);
+            return new RhymeIndex(new SortedWords(words, order), keyIds, keys);
+        }
+    }
+
+    /**
+     * Get the rhyme key of a pronounciation: its phonemes from the last stressed vowel onward, without stress marks
+     * @param phonemes the phonemes, like D IH0 B EY1 T
+     * @return the rhyme key, like EY T
+     */
+    static String rhymeKey(String phonemes) {
+        var split = phonemes.split(" +");
+        // the last vowel with primary or secondary stress, or failing that the last vowel
+        int from = -1;
+        for (int i = split.length - 1; i >= 0 && from == -1; i--) {
+            if (split[i].endsWith("1") || split[i].endsWith("2")) {
+                from = i;
+            }
+        }
+        for (int i = split.length - 1; i >= 0 && from == -1; i--) {
+            if (split[i].endsWith("0")) {
+                from = i;
+            }
+        }
+        var key = new StringBuilder();
+        for (int i = Math.max(from, 0); i < split.length; i++) {
+            if (key.length() > 0) {
+                key.append(' ');
+            }
+            var phoneme = split[i];
+            key.append(Character.isDigit(phoneme.charAt(phoneme.length() - 1))
+                    ? phoneme.substring(0, phoneme.length() - 1) : phoneme);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Get a word's rhyme key id; two different words rhyme if their ids are the same and not {@link #NO_RHYME}
+     * @param word the cleaned text of the word
+     * @return the id, or {@link #NO_RHYME} if the word isn't in the index
+     */
+    int key(CharSequence word) {
+        return keyAt(indexOf(word));
+    }
+
+    /**
+     * Get the rhyme key id of the word at a position in the index
+     * @param i the position, from {@link #indexOf}
+     * @return the id, or {@link #NO_RHYME} if the position is {@link #NOT_FOUND}
+     */
+    int keyAt(int i) {
+        return i == NOT_FOUND ? NO_RHYME : keyIds[i];
+    }
+
+    /**
+     * Find a word's position in the index, which tells words apart as cheaply as their rhyme keys do
+     * @param word the cleaned text of the word
+     * @return the position, or {@link #NOT_FOUND} if the word isn't in the index
+     */
+    int indexOf(CharSequence word) {
+        return words.indexOf(word);
+    }
+
+    /**
+     * Check whether two words rhyme; a word doesn't rhyme with itself
+     * @param a the cleaned text of one word
+     * @param b the cleaned text of the other
+     * @return whether they rhyme
+     */
+    boolean rhymes(CharSequence a, CharSequence b) {
+        int i = indexOf(a);
+        int j = indexOf(b);
+        return i != j && keyAt(i) != NO_RHYME && keyAt(i) == keyAt(j);
+    }
+
+    /**
+     * Get every word with the same rhyme key as a word, including the word itself
+     * @param word the cleaned text of the word
+     * @return the rhyming words in alphabetical order, or nothing if the word isn't in the index
+     */
+    List<String> rhymesOf(CharSequence word) {
+        int key = key(word);
+        if (key == NO_RHYME) {
+            return List.of();
+        }
+        var rhymes = new ArrayList<String>(keyStart[key + 1] - keyStart[key]);
+        for (int m = keyStart[key]; m < keyStart[key + 1]; m++) {
+            rhymes.add(words.word(members[m]));
+        }
+        return rhymes;
+    }
+
+    /**
+     * Get the phonemes a rhyme key stands for
+     * @param key the key's id
+     * @return the phonemes, like EY T
+     */
+    String phonemes(int key) {
+        return keys[key];
+    }
+
+    int size() {
+        return keyIds.length;
+    }
+
+    int keys() {
+        return keys.length;
+    }
+
+    /**
+     * Estimate how much heap the index uses
+     * @return an estimate in bytes
+     */
+    long heapFootprint() {
+        long footprint = words.heapFootprint() + HeapSize.of(keyIds) + HeapSize.of(keyStart) + HeapSize.of(members)
+                + HeapSize.of(keys);
+        for (var key : keys) {
+            footprint += HeapSize.of(key);
+        }
+        return footprint;
+    }
+}
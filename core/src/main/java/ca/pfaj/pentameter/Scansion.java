@@ -0,0 +1,145 @@
+package ca.pfaj.pentameter;
+
+import net.md_5.bungee.api.chat.BaseComponent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Suppliers.memoize;
+
+/**
+ * The result of scanning a phrase: how well it fits each meter, and what that says about the phrase.
+ * Everything here is worked out once, so colouring a message and deciding its potion effect share the same scan.
+ * The phrase is coloured, and called iambic or not, according to its best iambic pronounciation.
+ */
+public final class Scansion {
+    /**
+     * How thoroughly a phrase was scanned.
+     */
+    enum Mode {
+        // every combination of pronounciations was considered
+        FULL,
+        // each word's pronounciation was chosen to fit the words before it, since a full scan was over budget
+        GREEDY,
+        // each word's first pronounciation was used, since the message was too long to scan
+        UNSCANNED,
+    }
+
+    private final List<MeterFit> fits;
+    private final Mode mode;
+    private final MeterFit best;
+    private final PronouncedPhrase pronounciation;
+    private final Supplier<Stress[]> stress;
+
+    /**
+     * @param fits the phrase's best fit to each meter, which must include {@link Meter#IAMBIC}
+     */
+    Scansion(List<MeterFit> fits) {
+        this(fits, Mode.FULL);
+    }
+
+    /**
+     * @param fits the phrase's best fit to each meter, which must include {@link Meter#IAMBIC}
+     * @param mode how the fits were found
+     */
+    Scansion(List<MeterFit> fits, Mode mode) {
+        this.fits = List.copyOf(fits);
+        this.mode = mode;
+        this.best = MeterScanner.best(fits);
+        this.pronounciation = fits.stream().filter(fit -> fit.meter() == Meter.IAMBIC).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("scansion has no iambic fit"))
+                .pronounciation();
+        this.stress = memoize(() -> pronounciation.getStress().toArray(new Stress[0]));
+    }
+
+    /**
+     * Get the chosen iambic pronounciation of the phrase
+     * @return the chosen pronounciation
+     */
+    PronouncedPhrase pronounciation() {
+        return pronounciation;
+    }
+
+    /**
+     * Get the phrase's best fit to each meter it was scanned for
+     * @return the fits, in the order the meters were scanned for
+     */
+    List<MeterFit> fits() {
+        return fits;
+    }
+
+    /**
+     * Get the meter the phrase fits best
+     * @return the best fit
+     */
+    MeterFit bestFit() {
+        return best;
+    }
+
+    /**
+     * Get how thoroughly the phrase was scanned
+     * @return the mode
+     */
+    Mode mode() {
+        return mode;
+    }
+
+    public boolean isIambic() {
+        return pronounciation.isIambic();
+    }
+
+    public boolean isIambicPentameter() {
+        return pronounciation.isIambicPentameter();
+    }
+
+    public int getNumIncorrectSyllables() {
+        return pronounciation.getNumIncorrectSyllables();
+    }
+
+    /**
+     * Get the stress of every syllable in the chosen pronounciation, ignoring silent syllables. The array is shared,
+     * so don't modify it.
+     * @return the stress of each syllable
+     */
+    public Stress[] getStress() {
+        return stress.get();
+    }
+
+    /**
+     * Apply this scansion to other words with the same pronounciation options, such as the same message typed in a
+     * different case
+     * @param words the words, which must match this scansion's words one for one
+     * @return a scansion with the same pronounciations, showing the given words
+     */
+    Scansion withWords(List<Word> words) {
+        var renamedFits = new ArrayList<MeterFit>(fits.size());
+        for (var fit : fits) {
+            var chosen = fit.pronounciation().words.iterator();
+            var renamed = new ArrayList<PronouncedWord>(words.size());
+            for (var word : words) {
+                renamed.add(new PronouncedWord(word.name(), chosen.next().pronounciation()));
+            }
+            renamedFits.add(new MeterFit(fit.meter(), fit.feet(), fit.complete(), fit.numIncorrectSyllables(),
+                    new PronouncedPhrase(renamed)));
+        }
+        return new Scansion(renamedFits, mode);
+    }
+
+    /**
+     * Colour the phrase according to its chosen pronounciation
+     * @return the coloured phrase
+     */
+    public BaseComponent[] colour() {
+        return pronounciation.colour();
+    }
+
+    /**
+     * Colour the phrase according to its chosen pronounciation, suggesting words in place of those that don't fit
+     * @param substitutions where to find the suggestions
+     * @return the coloured phrase
+     */
+    BaseComponent[] colour(Substitutions substitutions) {
+        return Renderer.render(pronounciation, substitutions);
+    }
+}
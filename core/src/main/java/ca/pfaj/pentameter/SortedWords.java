@@ -0,0 +1,172 @@
+package ca.pfaj.pentameter;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A sorted list of words, stored back to back as ISO-8859-1 bytes and found by binary search. Words are compared with
+ * a word being looked for in place, so finding one doesn't allocate. The indexes built on it keep what they know
+ * about each word in arrays alongside, in the same order.
+ */
+final class SortedWords {
+    // the position of a word that isn't in the list
+    static final int NOT_FOUND = -1;
+    static final SortedWords EMPTY = new SortedWords(List.of(), new int[0]);
+
+    private final byte[] chars;
+    // word i is chars[offsets[i]] up to chars[offsets[i + 1]]
+    private final int[] offsets;
+
+    /**
+     * Sort words
+     * @param words the words, as ISO-8859-1 bytes, with no word twice
+     * @return the position in the words of each word in sorted order, to pass to the constructor along with the
+     * words, and to put anything kept about the words in the same order
+     */
+    static int[] order(List<byte[]> words) {
+        var order = new Integer[words.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(words.get(a), words.get(b)));
+        return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @param words the words, as ISO-8859-1 bytes
+     * @param order the order to store them in, from {@link #order(List)}
+     */
+    SortedWords(List<byte[]> words, int[] order) {
+        int totalLength = 0;
+        for (var word : words) {
+            totalLength += word.length;
+        }
+        chars = new byte[totalLength];
+        offsets = new int[order.length + 1];
+        for (int i = 0; i < order.length; i++) {
+            var word = words.get(order[i]);
+            System.arraycopy(word, 0, chars, offsets[i], word.length);
+            offsets[i + 1] = offsets[i] + word.length;
+        }
+    }
+
+    private SortedWords(byte[] chars, int[] offsets) {
+        this.chars = chars;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Write the words to an {@link IndexSnapshot}
+     * @param out where to write them
+     * @throws IOException if they can't be written
+     */
+    void write(DataOutput out) throws IOException {
+        IndexSnapshot.writeArray(out, chars);
+        IndexSnapshot.writeArray(out, offsets);
+    }
+
+    /**
+     * Read words written by {@link #write}
+     * @param in the snapshot, positioned where the words were written, and left after them
+     * @return the words
+     */
+    static SortedWords read(ByteBuffer in) {
+        return new SortedWords(IndexSnapshot.readBytes(in), IndexSnapshot.readInts(in));
+    }
+
+    /**
+     * Find a word
+     * @param word the cleaned text of the word
+     * @return its position, or {@link #NOT_FOUND} if it isn't in the list
+     */
+    int indexOf(CharSequence word) {
+        int lo = 0;
+        int hi = size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compare(mid, word);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Compare the word at a position with another word
+     * @return less than, equal to or greater than 0 as the word at the position sorts before, with or after the other
+     */
+    int compare(int i, CharSequence word) {
+        int start = offsets[i];
+        int length = offsets[i + 1] - start;
+        int n = Math.min(length, word.length());
+        for (int j = 0; j < n; j++) {
+            int cmp = Integer.compare(chars[start + j] & 0xFF, word.charAt(j));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, word.length());
+    }
+
+    /**
+     * Count how many letters the word at a position shares with the beginning of another word
+     * @return the length of the shared beginning
+     */
+    int sharedPrefix(int i, CharSequence word) {
+        int start = offsets[i];
+        int n = Math.min(offsets[i + 1] - start, word.length());
+        int j = 0;
+        while (j < n && (chars[start + j] & 0xFF) == word.charAt(j)) {
+            j++;
+        }
+        return j;
+    }
+
+    /**
+     * Count how many letters two words share at their beginnings
+     * @return the length of the shared beginning
+     */
+    static int sharedPrefix(CharSequence a, CharSequence b) {
+        int n = Math.min(a.length(), b.length());
+        int j = 0;
+        while (j < n && a.charAt(j) == b.charAt(j)) {
+            j++;
+        }
+        return j;
+    }
+
+    int length(int i) {
+        return offsets[i + 1] - offsets[i];
+    }
+
+    /**
+     * Get a letter of the word at a position
+     * @param i the word's position
+     * @param j the letter's position in the word
+     * @return the letter, as an unsigned byte
+     */
+    int letter(int i, int j) {
+        return chars[offsets[i] + j] & 0xFF;
+    }
+
+    String word(int i) {
+        return new String(chars, offsets[i], length(i), StandardCharsets.ISO_8859_1);
+    }
+
+    int size() {
+        return offsets.length - 1;
+    }
+
+    long heapFootprint() {
+        return HeapSize.of(chars) + HeapSize.of(offsets);
+    }
+}
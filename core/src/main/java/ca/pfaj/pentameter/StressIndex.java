@@ -0,0 +1,184 @@
+package ca.pfaj.pentameter;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Which words can be pronounced with each stress pattern, for suggesting a word that would fit the meter in place of
+ * one that doesn't. Patterns are packed with {@link StressPatterns#pack}, so they include the number of syllables, and
+ * a word with several pronounciations is listed under each of their patterns.
+ * <p>
+ * The words are {@link SortedWords}, and the words with each pattern are a sorted list of their positions, so the
+ * words spelled most like a given word are found by binary search rather than by going through every word with the
+ * pattern.
+ */
+final class StressIndex {
+    static final StressIndex EMPTY = new StressIndex(SortedWords.EMPTY, new long[0], new int[1], new int[0]);
+
+    private final SortedWords words;
+    // sorted
+    private final long[] patterns;
+    // the words with pattern p are members[patternStart[p]] up to members[patternStart[p + 1]], in order
+    private final int[] patternStart;
+    private final int[] members;
+
+    private StressIndex(SortedWords words, long[] patterns, int[] patternStart, int[] members) {
+        this.words = words;
+        this.patterns = patterns;
+        this.patternStart = patternStart;
+        this.members = members;
+    }
+
+    /**
+     * Index every word in a dictionary by its stress patterns
+     * @param dictionary the dictionary
+     * @return the index
+     */
+    static StressIndex of(Dictionary dictionary) {
+        var words = new ArrayList<byte[]>(dictionary.size());
+        var wordPatterns = new ArrayList<long[]>(dictionary.size());
+        dictionary.forEach((word, pronounciations) -> {
+            var packed = new long[pronounciations.size()];
+            int i = 0;
+            for (var pronounciation : pronounciations) {
+                packed[i++] = StressPatterns.pack(pronounciation);
+            }
+            words.add(word.getBytes(StandardCharsets.ISO_8859_1));
+            wordPatterns.add(Arrays.stream(packed).distinct().toArray());
+        });
+
+        var order = SortedWords.order(words);
+
+        var patterns = wordPatterns.stream().flatMapToLong(Arrays::stream).sorted().distinct().toArray();
+        var patternStart = new int[patterns.length + 1];
+        for (var packed : wordPatterns) {
+            for (var pattern : packed) {
+                patternStart[Arrays.binarySearch(patterns, pattern) + 1]++;
+            }
+        }
+        for (int p = 0; p < patterns.length; p++) {
+            patternStart[p + 1] += patternStart[p];
+        }
+        // going through the words in order keeps each pattern's words in order
+        var members = new int[patternStart[patterns.length]];
+        var next = Arrays.copyOf(patternStart, patterns.length);
+        for (int i = 0; i < order.length; i++) {
+            for (var pattern : wordPatterns.get(order[i])) {
+                members[next[Arrays.binarySearch(patterns, pattern)]++] = i;
+            }
+        }
+        return new StressIndex(new SortedWords(words, order), patterns, patternStart, members);
+    }
+
+    /**
+     * Write the index to an {@link IndexSnapshot}
+     * @param out where to write it
+     * @throws IOException if it can't be written
+     */
+    void write(DataOutput out) throws IOException {
+        words.write(out);
+        IndexSnapshot.writeArray(out, patterns);
+        IndexSnapshot.writeArray(out, patternStart);
+        IndexSnapshot.writeArray(out, members);
+    }
+
+    /**
+     * Read an index written by {@link #write}
+     * @param in the snapshot, positioned where the index was written, and left after it
+     * @return the index
+     */
+    static StressIndex read(ByteBuffer in) {
+        return new StressIndex(SortedWords.read(in), IndexSnapshot.readLongs(in), IndexSnapshot.readInts(in),
+                IndexSnapshot.readInts(in));
+    }
+
+    /**
+     * Pack the pattern of a word that fits the meter exactly: stresses alternating from the one expected
+     * @param expected the stress expected on the word's first syllable
+     * @param syllables the number of syllables
+     * @return the packed pattern
+     */
+    static long iambic(Stress expected, int syllables) {
+        long packed = Math.min(syllables, StressPatterns.MAX_SYLLABLES);
+        for (int i = expected == Stress.HIGH ? 0 : 1; i < StressPatterns.length(packed); i += 2) {
+            packed |= 1L << (6 + i);
+        }
+        return packed;
+    }
+
+    /**
+     * Find the words with a stress pattern that are spelled most like a word, which is to say that share the longest
+     * beginning with it
+     * @param word the cleaned text of the word, which is never one of the words found
+     * @param pattern the packed pattern
+     * @param limit the most words to find
+     * @return the words, most alike first, or nothing if no word has the pattern
+     */
+    List<String> nearest(CharSequence word, long pattern, int limit) {
+        int p = Arrays.binarySearch(patterns, pattern);
+        if (p < 0 || limit <= 0) {
+            return List.of();
+        }
+        int lo = patternStart[p];
+        int hi = patternStart[p + 1];
+        // find where the word is, or would be, among the words with the pattern
+        int left = lo;
+        int right = hi - 1;
+        int at = hi;
+        while (left <= right) {
+            int mid = (left + right) >>> 1;
+            int cmp = words.compare(members[mid], word);
+            if (cmp < 0) {
+                left = mid + 1;
+            } else if (cmp > 0) {
+                right = mid - 1;
+            } else {
+                at = mid;
+                break;
+            }
+        }
+        // the words either side of it share the longest beginnings with it, so work outwards from there
+        int before = (at < hi ? at : left) - 1;
+        int after = at < hi ? at + 1 : left;
+        var found = new ArrayList<String>(limit);
+        while (found.size() < limit && (before >= lo || after < hi)) {
+            if (after >= hi || before >= lo
+                    && words.sharedPrefix(members[before], word) >= words.sharedPrefix(members[after], word)) {
+                found.add(words.word(members[before--]));
+            } else {
+                found.add(words.word(members[after++]));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Check whether a word is in the index, under any pattern
+     * @param word the cleaned text of the word
+     * @return whether it is
+     */
+    boolean contains(CharSequence word) {
+        return words.indexOf(word) != SortedWords.NOT_FOUND;
+    }
+
+    int size() {
+        return words.size();
+    }
+
+    int patterns() {
+        return patterns.length;
+    }
+
+    /**
+     * Estimate how much heap the index uses
+     * @return an estimate in bytes
+     */
+    long heapFootprint() {
+        return words.heapFootprint() + HeapSize.of(patterns) + HeapSize.of(patternStart) + HeapSize.of(members);
+    }
+}
@@ -0,0 +1,143 @@
+package ca.pfaj.pentameter;
+
+import java.util.*;
+
+/**
+ * Packs stress patterns into longs, and interns them along with the sets of patterns words can be pronounced with.
+ * <p>
+ * A packed pattern holds the number of syllables in its low 6 bits, and sets bit 6 + i if syllable i is stressed.
+ * The dictionary only has a few hundred distinct patterns and not many more distinct sets of them, so words can
+ * refer to a set by a small id, and every word with the same pronounciations shares the same {@link Set}. The
+ * {@link Pronounciation}s in the sets are interned too.
+ */
+class StressPatterns {
+    static final int MAX_SYLLABLES = Long.SIZE - 6;
+    // rough sizes of an interned set, and of each Pronounciation record in it along with its list of stresses
+    static final int SET_OVERHEAD = 48;
+    static final int PRONOUNCIATION_OVERHEAD = 64;
+
+    private final Map<List<Long>, Integer> ids = new HashMap<>();
+    private final Map<Long, Pronounciation> pronounciations = new HashMap<>();
+    private final List<long[]> patterns = new ArrayList<>();
+    private final List<Set<Pronounciation>> sets = new ArrayList<>();
+
+    static long pack(Pronounciation pronounciation) {
+        var stress = pronounciation.stress();
+        int length = Math.min(stress.size(), MAX_SYLLABLES);
+        long packed = length;
+        int i = 0;
+        for (var syllable : stress) {
+            if (i == length) {
+                break;
+            }
+            if (syllable == Stress.HIGH) {
+                packed |= 1L << (6 + i);
+            }
+            i++;
+        }
+        return packed;
+    }
+
+    static Pronounciation unpack(long packed) {
+        int length = length(packed);
+        var stress = new Stress[length];
+        for (int i = 0; i < length; i++) {
+            stress[i] = isStressed(packed, i) ? Stress.HIGH : Stress.LOW;
+        }
+        return new Pronounciation(List.of(stress));
+    }
+
+    static int length(long packed) {
+        return (int) (packed & 0x3F);
+    }
+
+    static boolean isStressed(long packed, int syllable) {
+        return (packed & (1L << (6 + syllable))) != 0;
+    }
+
+    /**
+     * Intern a set of pronounciations
+     * @param pronounciations the pronounciations
+     * @return the id of the set
+     */
+    int intern(Set<Pronounciation> pronounciations) {
+        var packed = new long[pronounciations.size()];
+        int i = 0;
+        for (var pronounciation : pronounciations) {
+            packed[i++] = pack(pronounciation);
+        }
+        return intern(packed);
+    }
+
+    /**
+     * Intern a set of packed patterns
+     * @param packed the packed patterns, in any order
+     * @return the id of the set
+     */
+    int intern(long[] packed) {
+        var sorted = Arrays.stream(packed).sorted().distinct().toArray();
+        var key = Arrays.stream(sorted).boxed().toList();
+        var id = ids.get(key);
+        if (id == null) {
+            id = sets.size();
+            ids.put(key, id);
+            patterns.add(sorted);
+            var options = new Pronounciation[sorted.length];
+            for (int j = 0; j < sorted.length; j++) {
+                options[j] = pronounciations.computeIfAbsent(sorted[j], StressPatterns::unpack);
+            }
+            var set = Set.of(options);
+            // share the single-syllable set with everything else that uses it
+            sets.add(set.equals(Dictionary.SINGLE) ? Dictionary.SINGLE : set);
+        }
+        return id;
+    }
+
+    /**
+     * Get an interned set of pronounciations
+     * @param id the id of the set
+     * @return the set
+     */
+    Set<Pronounciation> get(int id) {
+        return sets.get(id);
+    }
+
+    /**
+     * Get the packed patterns of an interned set
+     * @param id the id of the set
+     * @return the packed patterns, sorted; don't modify them
+     */
+    long[] patterns(int id) {
+        return patterns.get(id);
+    }
+
+    /**
+     * Get the number of interned sets
+     * @return the number of sets
+     */
+    int size() {
+        return sets.size();
+    }
+
+    /**
+     * Get the interned sets in id order, for lookups that shouldn't go through a list
+     * @return the sets, indexed by id
+     */
+    @SuppressWarnings("unchecked")
+    Set<Pronounciation>[] toArray() {
+        return sets.toArray(new Set[0]);
+    }
+
+    /**
+     * Estimate the heap used by the interned sets and patterns, not counting the interning maps
+     * @return an estimate in bytes
+     */
+    long heapFootprint() {
+        long bytes = (long) pronounciations.size() * PRONOUNCIATION_OVERHEAD;
+        for (var packed : patterns) {
+            // the set and its packed patterns, each pattern with a reference from the set
+            bytes += SET_OVERHEAD + HeapSize.of(packed) + (long) packed.length * HeapSize.REFERENCE;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,251 @@
+package ca.pfaj.pentameter;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+/**
+ * Guesses how a word that isn't in the dictionary is pronounced, like a player's name or slang, from its spelling:
+ * its number of vowel groups (runs of vowels, counting Y as a vowel except at the start) and its last few letters.
+ * "LATE" has two vowel groups but one syllable, and words ending in "TION" stress the syllable before it; these
+ * tendencies are learned from the dictionary itself when the predictor is trained.
+ * <p>
+ * For every vowel group count and ending of up to {@value #MAX_ENDING} letters, training finds the stress pattern
+ * most words with that count and ending have. A guess uses the longest ending that was seen often enough, backing
+ * off to shorter ones. Only endings that change the guess of the ending one letter shorter are kept, in a sorted
+ * array, so the model is small and a guess is a handful of binary searches.
+ * <p>
+ * A word is guessed to have one way of being pronounced, unless it's guessed to have a single syllable, in which case
+ * like single-syllable words in the dictionary it can be stressed or unstressed. Safe to use from many threads.
+ */
+final class StressPredictor {
+    // the most letters of a word's ending that are looked at
+    static final int MAX_ENDING = 4;
+    // the fewest words that have to share an ending for it to be used
+    static final int MIN_SUPPORT = 3;
+    static final int MAX_GROUPS = 63;
+    // the bits below a key that number a pattern while training
+    private static final int PATTERN_BITS = 20;
+    // a predictor that hasn't learned anything, so guesses every word has a syllable for each vowel group
+    static final StressPredictor UNTRAINED = new StressPredictor(new long[0], new long[0]);
+
+    // keys are packed as the vowel group count, then the ending's length, then 5 bits per letter of the ending
+    private final long[] keys;
+    // the packed stress pattern (see StressPatterns) guessed for each key
+    private final long[] patterns;
+    // shared sets for the few patterns there are
+    private final Map<Long, Set<Pronounciation>> sets = new ConcurrentHashMap<>();
+
+    private StressPredictor(long[] keys, long[] patterns) {
+        this.keys = keys;
+        this.patterns = patterns;
+    }
+
+    /**
+     * Learn how words are pronounced from a dictionary
+     * @param dictionary the dictionary
+     * @return the trained predictor
+     */
+    static StressPredictor train(Dictionary dictionary) {
+        // every pronounciation of every word adds a key and pattern for each length of ending; patterns are numbered
+        // so that a key and pattern fit in a long, and sorting the longs brings each key's patterns together
+        Map<Long, Integer> ids = new HashMap<>();
+        var byId = new ArrayList<Long>();
+        var seen = LongStream.builder();
+        dictionary.forEach((word, pronounciations) -> {
+            int groups = vowelGroups(word);
+            if (groups == 0 || groups > MAX_GROUPS) {
+                return;
+            }
+            for (var pronounciation : pronounciations) {
+                long pattern = StressPatterns.pack(pronounciation);
+                if (StressPatterns.length(pattern) == 0) {
+                    continue;
+                }
+                long id = ids.computeIfAbsent(pattern, p -> {
+                    byId.add(p);
+                    return byId.size() - 1;
+                });
+                for (int length = 0; length <= Math.min(MAX_ENDING, word.length()); length++) {
+                    seen.add(key(groups, word, length) << PATTERN_BITS | id);
+                }
+            }
+        });
+        var sorted = seen.build().sorted().toArray();
+
+        // each key's most common pattern, and how often the key was seen; the first pattern numbered wins a tie
+        var keys = new long[sorted.length];
+        var best = new long[sorted.length];
+        var totals = new int[sorted.length];
+        int count = 0;
+        for (int i = 0; i < sorted.length; ) {
+            long key = sorted[i] >>> PATTERN_BITS;
+            int bestCount = 0;
+            while (i < sorted.length && sorted[i] >>> PATTERN_BITS == key) {
+                int j = i;
+                while (j < sorted.length && sorted[j] == sorted[i]) {
+                    j++;
+                }
+                if (j - i > bestCount) {
+                    bestCount = j - i;
+                    best[count] = byId.get((int) (sorted[i] & ((1L << PATTERN_BITS) - 1)));
+                }
+                totals[count] += j - i;
+                i = j;
+            }
+            keys[count++] = key;
+        }
+
+        // what each key guesses, from the shortest endings to the longest so that the guess for each key's ending one
+        // letter shorter is known; every word with an ending also has its shorter endings, so it's always there
+        var guesses = new long[count];
+        var kept = new boolean[count];
+        int keptCount = 0;
+        for (int length = 0; length <= MAX_ENDING; length++) {
+            for (int i = 0; i < count; i++) {
+                if (length(keys[i]) != length) {
+                    continue;
+                }
+                if (length == 0) {
+                    guesses[i] = best[i];
+                    kept[i] = true;
+                } else {
+                    long shorter = guesses[Arrays.binarySearch(keys, 0, count, shorten(keys[i]))];
+                    guesses[i] = totals[i] >= MIN_SUPPORT ? best[i] : shorter;
+                    kept[i] = guesses[i] != shorter;
+                }
+                keptCount += kept[i] ? 1 : 0;
+            }
+        }
+
+        var keptKeys = new long[keptCount];
+        var patterns = new long[keptCount];
+        for (int i = 0, j = 0; i < count; i++) {
+            if (kept[i]) {
+                keptKeys[j] = keys[i];
+                patterns[j++] = guesses[i];
+            }
+        }
+        return new StressPredictor(keptKeys, patterns);
+    }
+
+    /**
+     * Write what the predictor has learned to an {@link IndexSnapshot}
+     * @param out where to write it
+     * @throws IOException if it can't be written
+     */
+    void write(DataOutput out) throws IOException {
+        IndexSnapshot.writeArray(out, keys);
+        IndexSnapshot.writeArray(out, patterns);
+    }
+
+    /**
+     * Read a predictor written by {@link #write}
+     * @param in the snapshot, positioned where the predictor was written, and left after it
+     * @return the predictor
+     */
+    static StressPredictor read(ByteBuffer in) {
+        var keys = IndexSnapshot.readLongs(in);
+        var patterns = IndexSnapshot.readLongs(in);
+        if (keys.length != patterns.length) {
+            throw new IllegalArgumentException("predictor has " + keys.length + " keys but " + patterns.length
+                    + " patterns");
+        }
+        return new StressPredictor(keys, patterns);
+    }
+
+    /**
+     * Guess how a word is pronounced
+     * @param word the cleaned text of the word
+     * @return the guessed pronounciations; {@link Dictionary#SINGLE} for a word with no vowels, like "HMM"
+     */
+    Set<Pronounciation> predict(CharSequence word) {
+        int groups = vowelGroups(word);
+        if (groups == 0) {
+            return Dictionary.SINGLE;
+        }
+        groups = Math.min(groups, MAX_GROUPS);
+        for (int length = Math.min(MAX_ENDING, word.length()); length >= 0; length--) {
+            int i = Arrays.binarySearch(keys, key(groups, word, length));
+            if (i >= 0) {
+                return pronounciations(patterns[i]);
+            }
+        }
+        // a word longer than any in the dictionary: a syllable for each vowel group, stressed from the first
+        return pronounciations(StressIndex.iambic(Stress.HIGH, groups));
+    }
+
+    private Set<Pronounciation> pronounciations(long pattern) {
+        if (StressPatterns.length(pattern) == 1) {
+            return Dictionary.SINGLE;
+        }
+        return sets.computeIfAbsent(pattern, p -> Set.of(StressPatterns.unpack(p)));
+    }
+
+    /**
+     * Count the runs of vowels in a word, counting Y as a vowel except at the start
+     * @param word the cleaned text of the word
+     * @return the number of vowel groups
+     */
+    static int vowelGroups(CharSequence word) {
+        int groups = 0;
+        boolean inGroup = false;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            boolean vowel = c == 'A' || c == 'E' || c == 'I' || c == 'O' || c == 'U' || c == 'Y' && i > 0;
+            if (vowel && !inGroup) {
+                groups++;
+            }
+            inGroup = vowel;
+        }
+        return groups;
+    }
+
+    /**
+     * Pack a vowel group count and a word's last letters into a key
+     */
+    private static long key(int groups, CharSequence word, int length) {
+        long key = ((long) groups << 3 | length) << (5 * MAX_ENDING);
+        for (int i = 0; i < length; i++) {
+            // 'A' is 1, so no letter packs to 0; anything else that's slipped through packs to 31
+            char c = word.charAt(word.length() - length + i);
+            long letter = Tokenizer.isCleanLetter(c) ? c - 'A' + 1 : 31;
+            key |= letter << (5 * i);
+        }
+        return key;
+    }
+
+    private static int length(long key) {
+        return (int) (key >>> (5 * MAX_ENDING)) & 7;
+    }
+
+    /**
+     * Get the key for the same word's ending one letter shorter
+     */
+    private static long shorten(long key) {
+        int length = length(key);
+        long groups = key >>> (5 * MAX_ENDING + 3);
+        // the first letter of the ending is the lowest 5 bits; the rest move down to take its place
+        long letters = (key & ((1L << (5 * MAX_ENDING)) - 1)) >>> 5;
+        return (groups << 3 | (length - 1)) << (5 * MAX_ENDING) | letters;
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * Estimate how much heap the predictor uses
+     * @return an estimate in bytes
+     */
+    long heapFootprint() {
+        return HeapSize.of(keys) + HeapSize.of(patterns);
+    }
+}
@@ -0,0 +1,106 @@
+package ca.pfaj.pentameter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Suggests words that would fit the meter in place of words that don't, remembering the suggestions for recent words.
+ * Words are found in two {@link StressIndex}es: one of the base dictionary, built once when it's loaded, and one of
+ * just the overlays, which is small enough to build again whenever they're reloaded; a word in the overlays hides the
+ * same word in the base. Looking for suggestions is limited to a little time per message, since it's done
+ * while the message is waiting to be sent; once a message's time is up, its remaining words only get suggestions that
+ * were already remembered. Safe to use from many threads. A new one is made whenever the dictionary changes.
+ */
+final class Substitutions {
+    static final long CACHE_SIZE = 10_000;
+    static final Substitutions NONE = new Substitutions(StressIndex.EMPTY, StressIndex.EMPTY, 0, 0);
+
+    private record Key(String word, long pattern) {
+    }
+
+    private final StressIndex base;
+    private final StressIndex overlays;
+    private final int count;
+    private final long maxNanos;
+    private final Cache<Key, List<String>> suggestions =
+            CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).recordStats().build();
+
+    /**
+     * @param base the base dictionary's words, by stress pattern
+     * @param overlays the overlays' words, by stress pattern
+     * @param count the most words to suggest in place of each word
+     * @param maxNanos how long to spend finding suggestions for each message
+     */
+    Substitutions(StressIndex base, StressIndex overlays, int count, long maxNanos) {
+        this.base = base;
+        this.overlays = overlays;
+        this.count = count;
+        this.maxNanos = maxNanos;
+    }
+
+    /**
+     * Get the time by which a message that starts being rendered now must stop looking for suggestions
+     * @return the deadline, comparable with {@link System#nanoTime()}
+     */
+    long deadline() {
+        return System.nanoTime() + maxNanos;
+    }
+
+    /**
+     * Suggest words with a stress pattern in place of a word
+     * @param word the word as it was written
+     * @param pattern the packed pattern the word should have had
+     * @param deadline when to stop looking for suggestions that aren't remembered; see {@link #deadline()}
+     * @return the suggestions, in lower case, most alike first, or nothing if there are none or there wasn't time
+     */
+    List<String> suggest(String word, long pattern, long deadline) {
+        if (count <= 0) {
+            return List.of();
+        }
+        var key = new Key(Dictionary.cleanWord(word), pattern);
+        var cached = suggestions.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (System.nanoTime() - deadline >= 0) {
+            return List.of();
+        }
+        // the overlays' words can hide base words, so enough base words are found to make up for them
+        var fromOverlays = overlays.nearest(key.word(), pattern, count);
+        var fromBase = base.nearest(key.word(), pattern, count + overlays.size());
+        // merge the two, most alike first, an overlay's word first when they're as alike
+        var found = new ArrayList<String>(count);
+        int i = 0;
+        int j = 0;
+        while (found.size() < count && (i < fromOverlays.size() || j < fromBase.size())) {
+            if (j < fromBase.size() && overlays.contains(fromBase.get(j))) {
+                j++;
+            } else if (j >= fromBase.size() || i < fromOverlays.size()
+                    && SortedWords.sharedPrefix(fromOverlays.get(i), key.word())
+                    >= SortedWords.sharedPrefix(fromBase.get(j), key.word())) {
+                found.add(fromOverlays.get(i++).toLowerCase(Locale.ROOT));
+            } else {
+                found.add(fromBase.get(j++).toLowerCase(Locale.ROOT));
+            }
+        }
+        var result = List.copyOf(found);
+        suggestions.put(key, result);
+        return result;
+    }
+
+    StressIndex base() {
+        return base;
+    }
+
+    StressIndex overlays() {
+        return overlays;
+    }
+
+    Cache<?, ?> cache() {
+        return suggestions;
+    }
+}
@@ -0,0 +1,101 @@
+package ca.pfaj.pentameter;
+
+import java.util.Set;
+
+/**
+ * Splits a message into words and joiners (spaces and dashes) in a single pass, and looks each word up in a
+ * dictionary as it goes. Words are cleaned the same way as {@link Dictionary#cleanWord(String)} but into a buffer
+ * that is reused for every word, and are looked up straight from that buffer, so no strings are made along the way.
+ * <p>
+ * A tokenizer isn't thread-safe, so each message gets its own. Chat is analysed on a virtual thread per message where
+ * Java has them, which would each make a new tokenizer from a thread local anyway, and a tokenizer is only a buffer,
+ * so there's nothing to gain by sharing them.
+ */
+final class Tokenizer {
+    // what each ASCII character becomes when cleaned, or 0 if it's removed; matches String.toUpperCase in the
+    // default locale
+    private static final char[] ASCII = new char[128];
+
+    static {
+        for (char c = 0; c < ASCII.length; c++) {
+            var upper = String.valueOf(c).toUpperCase();
+            if (upper.length() == 1 && isCleanLetter(upper.charAt(0))) {
+                ASCII[c] = upper.charAt(0);
+            }
+        }
+    }
+
+    private final StringBuilder cleaned = new StringBuilder();
+
+    /**
+     * Receives the words and joiners of a message, in order.
+     */
+    interface Sink {
+        /**
+         * @param start the index of the word's first character in the message
+         * @param end the index after the word's last character
+         * @param pronounciations the word's pronounciations, or {@link Dictionary#SINGLE} if the dictionary doesn't
+         *                        know them
+         */
+        void word(int start, int end, Set<Pronounciation> pronounciations);
+
+        /**
+         * @param joiner the joiner, either ' ' or '-'
+         */
+        void joiner(char joiner);
+    }
+
+    static boolean isJoiner(char c) {
+        return c == ' ' || c == '-';
+    }
+
+    static boolean isCleanLetter(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    /**
+     * Append a character to a buffer the way {@link Dictionary#cleanWord(String)} would clean it
+     * @param c the character
+     * @param out the buffer
+     */
+    static void appendCleaned(char c, StringBuilder out) {
+        if (c < ASCII.length) {
+            if (ASCII[c] != 0) {
+                out.append(ASCII[c]);
+            }
+            return;
+        }
+        // some characters upper-case into ASCII letters (like the dotless i, or the sharp s into SS); these are rare
+        // enough that it's not worth avoiding the string
+        var upper = String.valueOf(c).toUpperCase();
+        for (int i = 0; i < upper.length(); i++) {
+            if (isCleanLetter(upper.charAt(i))) {
+                out.append(upper.charAt(i));
+            }
+        }
+    }
+
+    /**
+     * Split a message into words and joiners. Every joiner is surrounded by words, which may be empty, so a message
+     * always starts and ends with a word.
+     * @param message the message
+     * @param dictionary the dictionary to look words up in
+     * @param sink receives the words and joiners
+     */
+    void tokenize(CharSequence message, Dictionary dictionary, Sink sink) {
+        int start = 0;
+        cleaned.setLength(0);
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (isJoiner(c)) {
+                sink.word(start, i, dictionary.getOrDefault(cleaned, Dictionary.SINGLE));
+                sink.joiner(c);
+                start = i + 1;
+                cleaned.setLength(0);
+            } else {
+                appendCleaned(c, cleaned);
+            }
+        }
+        sink.word(start, message.length(), dictionary.getOrDefault(cleaned, Dictionary.SINGLE));
+    }
+}
@@ -0,0 +1,324 @@
+package ca.pfaj.pentameter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+
+/**
+ * A compact, read-only dictionary held in a trie, which can also work out the pronounciation of a word it doesn't
+ * know by splitting it into words it does, like "stonepickaxe" into STONE PICK AXE, or "creepers" into CREEPER and
+ * a plural S.
+ * <p>
+ * The trie's nodes are numbered breadth first, so each node's children are numbered one after another, and the
+ * children of consecutive nodes are next to each other too. A node is just the byte on the edge leading to it and
+ * the number of its first child; which nodes end a word is a bitset, and the pronounciations of those nodes are
+ * interned set ids (see {@link StressPatterns}) in node order, found by counting the set bits before the node.
+ */
+class TrieDictionary implements Dictionary, Dictionary.Prefixes {
+    // the shortest word a compound can be split into; shorter words are mostly letters and abbreviations
+    static final int MIN_PART = 3;
+    // the most pronounciations a compound can have before it's treated as unknown
+    static final int MAX_COMPOUND_PRONOUNCIATIONS = 16;
+    private static final Set<Pronounciation> NO_SYLLABLE = Set.of(new Pronounciation(List.of()));
+    private static final Set<Pronounciation> STRESSED = Set.of(new Pronounciation(List.of(Stress.HIGH)));
+    private static final Set<Pronounciation> UNSTRESSED = Set.of(new Pronounciation(List.of(Stress.LOW)));
+    private static final Set<Pronounciation> MAYBE_UNSTRESSED = Set.of(
+            new Pronounciation(List.of()), new Pronounciation(List.of(Stress.LOW)));
+    // endings that can follow a word in a compound, with what they add to it
+    private static final Suffix[] SUFFIXES = {
+            new Suffix("S", NO_SYLLABLE),
+            new Suffix("ES", MAYBE_UNSTRESSED),
+            new Suffix("ED", MAYBE_UNSTRESSED),
+            new Suffix("ING", UNSTRESSED),
+            new Suffix("INGS", UNSTRESSED),
+            new Suffix("ER", UNSTRESSED),
+            new Suffix("ERS", UNSTRESSED),
+            new Suffix("LY", UNSTRESSED),
+    };
+
+    private record Suffix(String text, Set<Pronounciation> pronounciations) {
+    }
+
+    // the byte on the edge into each node; the root's is unused
+    private final byte[] labels;
+    // node i's children are firstChild[i] up to firstChild[i + 1]
+    private final int[] firstChild;
+    // the nodes that end a word
+    private final long[] terminal;
+    // the number of set bits in terminal before each of its longs
+    private final int[] terminalRank;
+    // the pronounciations of the nth node that ends a word
+    private final int[] setIds;
+    private final Set<Pronounciation>[] sets;
+    private final StressPatterns patterns;
+
+    private TrieDictionary(byte[] labels, int[] firstChild, long[] terminal, int[] setIds, StressPatterns patterns) {
+        this.labels = labels;
+        this.firstChild = firstChild;
+        this.terminal = terminal;
+        this.setIds = setIds;
+        this.patterns = patterns;
+        this.sets = patterns.toArray();
+        terminalRank = new int[terminal.length];
+        for (int i = 1; i < terminal.length; i++) {
+            terminalRank[i] = terminalRank[i - 1] + Long.bitCount(terminal[i - 1]);
+        }
+    }
+
+    /**
+     * Copy a dictionary into a trie
+     * @param dictionary the dictionary to copy
+     * @return the trie
+     */
+    static TrieDictionary copyOf(Dictionary dictionary) {
+        var patterns = new StressPatterns();
+        var words = new ArrayList<byte[]>(dictionary.size());
+        var wordSets = new ArrayList<Integer>(dictionary.size());
+        dictionary.forEach((word, pronounciations) -> {
+            words.add(word.getBytes(StandardCharsets.ISO_8859_1));
+            wordSets.add(patterns.intern(pronounciations));
+        });
+        var order = SortedWords.order(words);
+        var sorted = new SortedWords(words, order);
+        var sortedSets = new int[order.length];
+        int totalLength = 0;
+        for (int i = 0; i < order.length; i++) {
+            sortedSets[i] = wordSets.get(order[i]);
+            totalLength += sorted.length(i);
+        }
+
+        // every node is a range of the sorted words that share a prefix as long as the node's depth; nodes are
+        // numbered in the order they're found, which is breadth first
+        int maxNodes = totalLength + 1;
+        var labels = new byte[maxNodes];
+        var firstChild = new int[maxNodes + 1];
+        var terminal = new long[(maxNodes + 63) / 64];
+        var setIds = new int[order.length];
+        var lo = new int[maxNodes];
+        var hi = new int[maxNodes];
+        var depth = new int[maxNodes];
+        hi[0] = sorted.size();
+        int nodes = 1;
+        int terminals = 0;
+        for (int node = 0; node < nodes; node++) {
+            firstChild[node] = nodes;
+            int start = lo[node];
+            // the words are unique, so at most one ends here, and it sorts first
+            if (start < hi[node] && sorted.length(start) == depth[node]) {
+                terminal[node >>> 6] |= 1L << node;
+                setIds[terminals++] = sortedSets[start];
+                start++;
+            }
+            while (start < hi[node]) {
+                int label = sorted.letter(start, depth[node]);
+                int end = start + 1;
+                while (end < hi[node] && sorted.letter(end, depth[node]) == label) {
+                    end++;
+                }
+                labels[nodes] = (byte) label;
+                lo[nodes] = start;
+                hi[nodes] = end;
+                depth[nodes] = depth[node] + 1;
+                nodes++;
+                start = end;
+            }
+        }
+        firstChild[nodes] = nodes;
+        return new TrieDictionary(Arrays.copyOf(labels, nodes), Arrays.copyOf(firstChild, nodes + 1),
+                Arrays.copyOf(terminal, (nodes + 63) / 64), Arrays.copyOf(setIds, terminals), patterns);
+    }
+
+    /**
+     * Follow the edge from a node labelled with a character
+     * @return the child, or -1 if there's no such edge
+     */
+    private int child(int node, char c) {
+        if (c > 0xFF) {
+            return -1;
+        }
+        // children are sorted by label
+        for (int i = firstChild[node]; i < firstChild[node + 1]; i++) {
+            int label = labels[i] & 0xFF;
+            if (label == c) {
+                return i;
+            }
+            if (label > c) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isTerminal(int node) {
+        return (terminal[node >>> 6] & (1L << node)) != 0;
+    }
+
+    private Set<Pronounciation> pronounciations(int node) {
+        int rank = terminalRank[node >>> 6] + Long.bitCount(terminal[node >>> 6] & ((1L << node) - 1));
+        return sets[setIds[rank]];
+    }
+
+    @Override
+    public Set<Pronounciation> get(CharSequence word) {
+        int node = 0;
+        for (int i = 0; i < word.length() && node >= 0; i++) {
+            node = child(node, word.charAt(i));
+        }
+        return node >= 0 && isTerminal(node) ? pronounciations(node) : null;
+    }
+
+    /**
+     * Look a word up, or if it isn't in the dictionary, split it into words that are
+     */
+    @Override
+    public Set<Pronounciation> lookup(CharSequence word) {
+        var pronounciations = get(word);
+        return pronounciations != null ? pronounciations : decompose(word);
+    }
+
+    /**
+     * Split a word into the fewest words in the dictionary, each at least {@value #MIN_PART} letters long, and
+     * optionally ending in a suffix like a plural S. On a tie, longer words come first. One-syllable words are
+     * stressed, as they are in the compounds the dictionary knows.
+     * @param word the cleaned text of the word
+     * @return every way of pronouncing the parts one after another, or null if the word can't be split or has too
+     * many pronounciations
+     */
+    Set<Pronounciation> decompose(CharSequence word) {
+        return decompose(word, this, this);
+    }
+
+    @Override
+    public void forEachWord(CharSequence word, int start, IntConsumer end) {
+        int node = 0;
+        for (int j = start; j < word.length() && node >= 0; j++) {
+            node = child(node, word.charAt(j));
+            if (node >= 0 && isTerminal(node)) {
+                end.accept(j + 1);
+            }
+        }
+    }
+
+    /**
+     * Split a word into the fewest words in any dictionary, as {@link #decompose(CharSequence)} does for a trie
+     * @param word the cleaned text of the word
+     * @param dictionary the dictionary
+     * @param prefixes finds the dictionary's words in the word
+     * @return every way of pronouncing the parts one after another, or null if the word can't be split or has too
+     * many pronounciations
+     */
+    static Set<Pronounciation> decompose(CharSequence word, Dictionary dictionary, Prefixes prefixes) {
+        int n = word.length();
+        // parts[i] is the fewest parts that word[i..n] splits into, and end[i] is where the first of them ends
+        var parts = new int[n + 1];
+        var end = new int[n + 1];
+        // what the suffix starting at i adds, if the first part there is one
+        @SuppressWarnings("unchecked")
+        Set<Pronounciation>[] suffixes = new Set[n + 1];
+        Arrays.fill(parts, Integer.MAX_VALUE);
+        parts[n] = 0;
+        for (int i = n - 1; i >= 0; i--) {
+            int start = i;
+            prefixes.forEachWord(word, start, j -> {
+                if (j - start >= MIN_PART && parts[j] != Integer.MAX_VALUE
+                        && (parts[j] + 1 < parts[start] || parts[j] + 1 == parts[start] && j > end[start])) {
+                    parts[start] = parts[j] + 1;
+                    end[start] = j;
+                }
+            });
+            // a suffix can only end a word that's been split, and a word that's the same as a suffix (like ING) is
+            // read as that word
+            var ending = i > 0 ? suffix(word, i) : null;
+            if (ending != null && parts[i] > 1) {
+                parts[i] = 1;
+                end[i] = n;
+                suffixes[i] = ending;
+            }
+        }
+        // one part would be the word itself, which get has already looked for
+        if (parts[0] == Integer.MAX_VALUE || parts[0] < 2) {
+            return null;
+        }
+
+        Set<Pronounciation> combined = NO_SYLLABLE;
+        for (int i = 0; i < n; i = end[i]) {
+            var partPronounciations = suffixes[i] != null ? suffixes[i] : dictionary.get(word.subSequence(i, end[i]));
+            // every word in a compound keeps at least a secondary stress, as in REDWOOD (R EH1 D W UH2 D), so a
+            // one-syllable word that could go either way on its own is stressed; otherwise each one would double the
+            // compound's pronounciations
+            if (partPronounciations.equals(Dictionary.SINGLE)) {
+                partPronounciations = STRESSED;
+            }
+            if (combined.size() * partPronounciations.size() > MAX_COMPOUND_PRONOUNCIATIONS) {
+                return null;
+            }
+            var next = new LinkedHashSet<Pronounciation>();
+            for (var before : combined) {
+                for (var after : partPronounciations) {
+                    var stress = new ArrayList<>(before.stress());
+                    stress.addAll(after.stress());
+                    next.add(new Pronounciation(List.copyOf(stress)));
+                }
+            }
+            combined = next;
+        }
+        return Set.copyOf(combined);
+    }
+
+    /**
+     * Find the suffix that the rest of a word is, comparing it in place
+     * @param word the cleaned text of the word
+     * @param start where the suffix would start
+     * @return what the suffix adds to the part before it, or null if the rest of the word isn't a suffix
+     */
+    private static Set<Pronounciation> suffix(CharSequence word, int start) {
+        int length = word.length() - start;
+        for (var suffix : SUFFIXES) {
+            var text = suffix.text();
+            if (text.length() != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && text.charAt(i) == word.charAt(start + i)) {
+                i++;
+            }
+            if (i == length) {
+                return suffix.pronounciations();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return setIds.length;
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Set<Pronounciation>> action) {
+        forEach(0, new byte[0], action);
+    }
+
+    private void forEach(int node, byte[] prefix, BiConsumer<String, Set<Pronounciation>> action) {
+        if (isTerminal(node)) {
+            action.accept(new String(prefix, StandardCharsets.ISO_8859_1), pronounciations(node));
+        }
+        for (int child = firstChild[node]; child < firstChild[node + 1]; child++) {
+            var word = Arrays.copyOf(prefix, prefix.length + 1);
+            word[prefix.length] = labels[child];
+            forEach(child, word, action);
+        }
+    }
+
+    @Override
+    public long heapFootprint() {
+        return HeapSize.of(labels) + HeapSize.of(firstChild) + HeapSize.of(terminal) + HeapSize.of(terminalRank)
+                + HeapSize.of(setIds) + HeapSize.of(sets) + patterns.heapFootprint();
+    }
+}
@@ -0,0 +1,147 @@
+package ca.pfaj.pentameter;
+
+import java.util.Locale;
+
+/**
+ * A poem a player is writing one chat message at a time, each message a line. Lines are scored as they arrive, and
+ * only a running tally is kept, along with each line's last word and its rhyme key, so adding a line takes the same
+ * work however long the poem is, and a session takes no more memory than a sonnet's worth of ints.
+ */
+final class VerseSession {
+    /**
+     * The kinds of poem that can be written.
+     */
+    enum Form {
+        COUPLET("AA"),
+        QUATRAIN("ABAB"),
+        // Shakespearean
+        SONNET("ABABCDCDEFEFGG");
+
+        final int lines;
+        // for each line, the earlier line it should rhyme with, or -1
+        private final int[] partner;
+        // the number of lines that should rhyme with an earlier one
+        final int rhymes;
+
+        /**
+         * @param scheme the rhyme scheme, a letter per line; lines with the same letter rhyme
+         */
+        Form(String scheme) {
+            lines = scheme.length();
+            partner = new int[lines];
+            int rhymes = 0;
+            for (int i = 0; i < lines; i++) {
+                partner[i] = scheme.lastIndexOf(scheme.charAt(i), i - 1);
+                if (partner[i] >= 0) {
+                    rhymes++;
+                }
+            }
+            this.rhymes = rhymes;
+        }
+
+        String displayName() {
+            return name().charAt(0) + name().substring(1).toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * How a poem stands after a line is added.
+     * @param form the kind of poem
+     * @param line the number of the line just added, from 1
+     * @param fit how the line scans
+     * @param pentameterLines how many lines so far are iambic pentameter
+     * @param incorrectSyllables how many syllables so far don't fit iambic pentameter
+     * @param partner the line this one should rhyme with, from 1, or 0 if none
+     * @param rhymed whether this line rhymes with its partner
+     * @param rhymes how many lines so far rhyme with their partners
+     */
+    record Progress(Form form, int line, MeterFit fit, int pentameterLines, int incorrectSyllables, int partner,
+                    boolean rhymed, int rhymes) {
+        boolean complete() {
+            return line == form.lines;
+        }
+
+        /**
+         * Check whether the poem is finished and every line is iambic pentameter
+         * @return whether the poem is perfect
+         */
+        boolean perfect() {
+            return complete() && pentameterLines == form.lines;
+        }
+
+        /**
+         * Check whether the poem is finished and follows its rhyme scheme
+         * @return whether every line rhymes with its partner
+         */
+        boolean rhymesThroughout() {
+            return complete() && rhymes == form.rhymes;
+        }
+
+        /**
+         * Describe the progress to the poet
+         * @return the description
+         */
+        String describe() {
+            var rhyme = partner == 0 ? "" : (rhymed ? ", rhymes with line " : ", doesn't rhyme with line ") + partner;
+            if (complete()) {
+                return String.format("%s complete: %d of %d lines in iambic pentameter, %d incorrect syllables, %d "
+                                + "of %d rhymes", form.displayName(), pentameterLines, form.lines, incorrectSyllables,
+                        rhymes, form.rhymes);
+            }
+            return String.format("Line %d of %d: %s%s", line, form.lines, fit, rhyme);
+        }
+    }
+
+    private final Form form;
+    private int lines;
+    private int pentameterLines;
+    private int incorrectSyllables;
+    private int rhymes;
+    // the rhyme key of each line's last word
+    private final int[] rhymeKeys;
+    // each line's last word, as its position in the rhyme index, since ending on the same word again isn't a rhyme
+    private final int[] lastWords;
+
+    /**
+     * @param form the kind of poem to write
+     */
+    VerseSession(Form form) {
+        this.form = form;
+        this.rhymeKeys = new int[form.lines];
+        this.lastWords = new int[form.lines];
+    }
+
+    /**
+     * Add the next line of the poem
+     * @param scansion the line's scansion
+     * @param rhymeKey the rhyme key of the line's last word, or {@link RhymeIndex#NO_RHYME} if it isn't known
+     * @param lastWord the position of the line's last word in the rhyme index, or {@link RhymeIndex#NOT_FOUND}
+     * @return how the poem stands with the line added
+     */
+    synchronized Progress add(Scansion scansion, int rhymeKey, int lastWord) {
+        if (lines == form.lines) {
+            throw new IllegalStateException("the " + form.displayName().toLowerCase(Locale.ROOT) + " is finished");
+        }
+        lines++;
+        if (scansion.isIambicPentameter()) {
+            pentameterLines++;
+        }
+        // the iambic fit, since that's what every line is aiming for
+        var fit = scansion.fits().stream().filter(f -> f.meter() == Meter.IAMBIC).findFirst().orElseThrow();
+        incorrectSyllables += fit.numIncorrectSyllables();
+        int line = lines - 1;
+        rhymeKeys[line] = rhymeKey;
+        lastWords[line] = lastWord;
+        int partner = form.partner[line];
+        boolean rhymed = partner >= 0 && rhymeKey != RhymeIndex.NO_RHYME && rhymeKeys[partner] == rhymeKey
+                && lastWords[partner] != lastWord;
+        if (rhymed) {
+            rhymes++;
+        }
+        return new Progress(form, lines, fit, pentameterLines, incorrectSyllables, partner + 1, rhymed, rhymes);
+    }
+
+    Form form() {
+        return form;
+    }
+}
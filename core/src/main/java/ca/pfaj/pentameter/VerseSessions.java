@@ -0,0 +1,83 @@
+package ca.pfaj.pentameter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * The poems players are in the middle of writing. Sessions that aren't added to for a while are dropped, and there
+ * can only be so many at once, so forgotten sessions don't pile up. Safe to use from many threads.
+ */
+final class VerseSessions {
+    private final Cache<UUID, VerseSession> sessions;
+
+    /**
+     * @param maximumSize the most sessions at once; the least recently used is dropped to make room
+     * @param idle how long a session lasts without a new line
+     */
+    VerseSessions(long maximumSize, Duration idle) {
+        sessions = CacheBuilder.newBuilder().maximumSize(maximumSize).expireAfterAccess(idle).build();
+    }
+
+    /**
+     * Start a poem, replacing any the player was already writing
+     * @param player the player
+     * @param form the kind of poem
+     */
+    void start(UUID player, VerseSession.Form form) {
+        sessions.put(player, new VerseSession(form));
+    }
+
+    /**
+     * Stop a poem
+     * @param player the player
+     * @return the poem the player was writing, or null if they weren't
+     */
+    VerseSession stop(UUID player) {
+        var session = sessions.getIfPresent(player);
+        sessions.invalidate(player);
+        return session;
+    }
+
+    /**
+     * Add a line to a player's poem, if they're writing one, and end the session once the poem is complete
+     * @param player the player
+     * @param scansion the line's scansion
+     * @param rhymes the index to find the rhyme of the line's last word in
+     * @return how the poem stands, or null if the player isn't writing one
+     */
+    VerseSession.Progress add(UUID player, Scansion scansion, RhymeIndex rhymes) {
+        var session = sessions.getIfPresent(player);
+        if (session == null) {
+            return null;
+        }
+        int word = rhymes.indexOf(lastWord(scansion));
+        var progress = session.add(scansion, rhymes.keyAt(word), word);
+        if (progress.complete()) {
+            sessions.asMap().remove(player, session);
+        }
+        return progress;
+    }
+
+    /**
+     * Get the last word of a line, which is the one that rhymes
+     * @param scansion the line's scansion
+     * @return the cleaned text of the word, or an empty string if there are no words
+     */
+    static String lastWord(Scansion scansion) {
+        var words = scansion.pronounciation().words;
+        for (int i = words.size() - 1; i >= 0; i--) {
+            var word = Dictionary.cleanWord(words.get(i).name());
+            if (!word.isEmpty()) {
+                return word;
+            }
+        }
+        return "";
+    }
+
+    long size() {
+        return sessions.size();
+    }
+}
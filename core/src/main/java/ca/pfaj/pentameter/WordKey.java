@@ -0,0 +1,69 @@
+package ca.pfaj.pentameter;
+
+/**
+ * A word as a map key, compared by its characters, so a word in a reused buffer can be looked up without copying it
+ * into a string. A key made by {@link #view(CharSequence)} reads the buffer it was made from, so it's only good for
+ * looking up; keys that are kept are made by {@link #copyOf(CharSequence)}.
+ */
+final class WordKey implements CharSequence {
+    private final CharSequence chars;
+    private final int hash;
+
+    private WordKey(CharSequence chars) {
+        this.chars = chars;
+        // the same as String.hashCode, so a key hashes the same whether it's a view or a copy
+        int h = 0;
+        for (int i = 0; i < chars.length(); i++) {
+            h = 31 * h + chars.charAt(i);
+        }
+        this.hash = h;
+    }
+
+    /**
+     * Make a key that reads a word in place, for looking up
+     * @param word the word, which mustn't change while the key is in use
+     * @return the key
+     */
+    static WordKey view(CharSequence word) {
+        return new WordKey(word);
+    }
+
+    /**
+     * Make a key that can be kept
+     * @param word the word
+     * @return the key
+     */
+    static WordKey copyOf(CharSequence word) {
+        return new WordKey(word.toString());
+    }
+
+    @Override
+    public int length() {
+        return chars.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return chars.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return chars.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return chars.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof WordKey other && hash == other.hash && CharSequence.compare(chars, other.chars) == 0;
+    }
+}
@@ -0,0 +1,143 @@
+package ca.pfaj.pentameter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DictionaryCacheTest {
+    private static final String TEXT = ";;; a comment\nDEBATE  D IH0 B EY1 T\nLATE  L EY1 T\nRECORD  R EH1 K ER0 D\n"
+            + "RECORD(1)  R IH0 K AO1 R D\n";
+    private static final byte[] BYTES = TEXT.getBytes(StandardCharsets.ISO_8859_1);
+    private static final List<String> LINES = List.of(TEXT.split("\n"));
+    // the SHA-256 of TEXT
+    private static final String SHA256 = sha256(BYTES);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void fillsFromAStreamAndReadsBackTheSameText() throws IOException {
+        var cache = new DictionaryCache(directory.resolve("dict.gz"), "");
+        var filled = new ArrayList<String>();
+        var result = cache.fill(new ByteArrayInputStream(BYTES), BYTES.length, filled::add);
+
+        var crc = new CRC32();
+        crc.update(BYTES);
+        assertEquals(LINES, filled);
+        assertEquals(crc.getValue(), result.checksum());
+        assertEquals(SHA256, result.sha256());
+        assertEquals(BYTES.length, result.bytes());
+        assertEquals(crc.getValue(), cache.recordedChecksum());
+
+        var read = new ArrayList<String>();
+        assertEquals(result, cache.read(read::add));
+        assertEquals(LINES, read);
+    }
+
+    @Test
+    void truncatedDownloadLeavesTheOldCopy() throws IOException {
+        var path = directory.resolve("dict.gz");
+        var cache = new DictionaryCache(path, "");
+        cache.fill(new ByteArrayInputStream(BYTES), BYTES.length, line -> {});
+
+        var truncated = Arrays.copyOf(BYTES, BYTES.length / 2);
+        assertThrows(IOException.class, () -> cache.fill(new ByteArrayInputStream(truncated), BYTES.length,
+                line -> {}));
+
+        var read = new ArrayList<String>();
+        cache.read(read::add);
+        assertEquals(LINES, read);
+        assertFalse(Files.exists(directory.resolve("dict.gz" + DictionaryCache.TEMP_SUFFIX)));
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(path), files.toList());
+        }
+    }
+
+    @Test
+    void firstSha256IsRecordedAndExpected() throws IOException {
+        var path = directory.resolve("dict.gz");
+        var cache = new DictionaryCache(path, "");
+        cache.recordSha256(cache.fill(new ByteArrayInputStream(BYTES), -1, line -> {}));
+        assertEquals(SHA256, Files.readString(cache.recordedSha256Path()).trim());
+
+        // a dictionary that's been changed upstream is refused, and the message says how to accept it
+        var other = "OTHER  AH1 DH ER0\n".getBytes(StandardCharsets.ISO_8859_1);
+        var e = assertThrows(IOException.class, () -> cache.fill(new ByteArrayInputStream(other), -1, line -> {}));
+        assertTrue(e.getMessage().contains(SHA256));
+        assertTrue(e.getMessage().contains(cache.recordedSha256Path().toAbsolutePath().toString()));
+        assertEquals(BYTES.length, cache.read(line -> {}).bytes());
+
+        Files.delete(cache.recordedSha256Path());
+        cache.fill(new ByteArrayInputStream(other), -1, line -> {});
+    }
+
+    @Test
+    void givenSha256IsNotRecorded() throws IOException {
+        var cache = new DictionaryCache(directory.resolve("dict.gz"), SHA256);
+        cache.recordSha256(cache.fill(new ByteArrayInputStream(BYTES), -1, line -> {}));
+        assertFalse(Files.exists(cache.recordedSha256Path()));
+    }
+
+    @Test
+    void textWithoutWordsIsNotKept() throws IOException {
+        var path = directory.resolve("dict.gz");
+        var cache = new DictionaryCache(path, "");
+        var page = "<html>Not Found</html>\n".getBytes(StandardCharsets.ISO_8859_1);
+        var parsed = new HashDictionary();
+        assertThrows(IOException.class, () -> cache.fill(new ByteArrayInputStream(page), -1,
+                line -> CmuParser.parseLine(parsed, line), () -> parsed.size() > 0));
+        assertFalse(cache.exists());
+        assertFalse(Files.exists(cache.recordedSha256Path()));
+    }
+
+    @Test
+    void corruptedCopyThrows() throws IOException {
+        var path = directory.resolve("dict.gz");
+        var cache = new DictionaryCache(path, "");
+        cache.fill(new ByteArrayInputStream(BYTES), -1, line -> {});
+
+        var compressed = Files.readAllBytes(path);
+        // past the 10 byte header, in the compressed text
+        compressed[compressed.length / 2] ^= 0x55;
+        Files.write(path, compressed);
+        assertThrows(IOException.class, () -> cache.read(line -> {}));
+    }
+
+    @Test
+    void wrongSha256Throws() throws IOException {
+        var path = directory.resolve("dict.gz");
+        new DictionaryCache(path, SHA256.toUpperCase()).fill(new ByteArrayInputStream(BYTES), -1, line -> {});
+        assertTrue(Files.exists(path));
+
+        var wrong = new DictionaryCache(path, "0".repeat(64));
+        assertThrows(IOException.class, () -> wrong.read(line -> {}));
+        assertThrows(IOException.class, () -> wrong.fill(new ByteArrayInputStream(BYTES), -1, line -> {}));
+        // the copy that was there is kept
+        assertEquals(BYTES.length, new DictionaryCache(path, SHA256).read(line -> {}).bytes());
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
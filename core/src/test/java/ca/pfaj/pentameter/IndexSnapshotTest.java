@@ -0,0 +1,46 @@
+package ca.pfaj.pentameter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexSnapshotTest {
+    @TempDir
+    Path directory;
+
+    static IndexSnapshot indexes() {
+        return IndexSnapshot.build(StressIndexTest.dictionary(StressPredictorTest.CMU), RhymeIndexTest.index());
+    }
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        var path = directory.resolve("dict.idx");
+        indexes().write(path, 1);
+        var read = IndexSnapshot.read(path, 1).orElseThrow();
+        assertTrue(read.rhymes().rhymes("LATE", "DEBATE"));
+        assertEquals(List.of("DONT", "WONT"), read.rhymes().rhymesOf("WONT"));
+        assertEquals(StressPredictorTest.pronounced(Stress.LOW, Stress.HIGH, Stress.LOW),
+                read.predictor().predict("GRAVENTION"));
+        assertEquals(StressPredictorTest.CMU.size(), read.stress().size());
+        assertTrue(read.stress().contains("ATTENTION"));
+    }
+
+    @Test
+    void ignoresStaleOrDamagedSnapshots() throws IOException {
+        var path = directory.resolve("dict.idx");
+        assertTrue(IndexSnapshot.read(path, 1).isEmpty());
+        indexes().write(path, 1);
+        assertTrue(IndexSnapshot.read(path, 2).isEmpty());
+        var bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+        assertTrue(IndexSnapshot.read(path, 1).isEmpty());
+    }
+}
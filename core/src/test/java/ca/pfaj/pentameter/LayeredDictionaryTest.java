@@ -0,0 +1,85 @@
+package ca.pfaj.pentameter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static ca.pfaj.pentameter.Stress.HIGH;
+import static ca.pfaj.pentameter.Stress.LOW;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class LayeredDictionaryTest {
+    @TempDir
+    Path directory;
+
+    static TrieDictionary base() {
+        var parsed = new HashDictionary();
+        for (var line : List.of("DIAMOND  D AY1 M AH0 N D", "STONE  S T OW1 N", "SWORD  S AO1 R D")) {
+            CmuParser.parseLine(parsed, line);
+        }
+        return TrieDictionary.copyOf(parsed);
+    }
+
+    static Set<Pronounciation> pronounced(Stress... stress) {
+        return Set.of(new Pronounciation(List.of(stress)));
+    }
+
+    @Test
+    void splitsCompoundsOfOverlayWords() throws IOException {
+        Files.writeString(directory.resolve("minecraft.dict"), "NETHERITE  N EH1 TH ER0 AY2 T\n");
+        var dictionary = new LayeredDictionary(base(), List.of()).reload(directory).dictionary();
+        assertEquals(pronounced(HIGH, LOW, HIGH, HIGH), dictionary.lookup("NETHERITESWORD"));
+        assertEquals(pronounced(HIGH, HIGH, LOW, HIGH), dictionary.lookup("SWORDNETHERITE"));
+        assertEquals(pronounced(HIGH, LOW, HIGH), dictionary.lookup("DIAMONDSWORD"));
+    }
+
+    @Test
+    void reloadsOnlyChangedOverlays() throws IOException {
+        var base = base();
+        var a = directory.resolve("a.dict");
+        var b = directory.resolve("b.dict");
+        Files.writeString(a, "NETHERITE  N EH1 TH ER0 AY2 T\n");
+        Files.writeString(b, "DIAMOND  D AY1 AH0 M AH0 N D\n");
+        var first = new LayeredDictionary(base, List.of()).reload(directory);
+        assertEquals(List.of("a.dict", "b.dict"), first.rebuilt());
+        // b's DIAMOND hides the base's, in words and in compounds
+        var dictionary = first.dictionary();
+        assertEquals(pronounced(HIGH, LOW, LOW), dictionary.lookup("DIAMOND"));
+        assertEquals(pronounced(HIGH, LOW, LOW, HIGH), dictionary.lookup("DIAMONDSWORD"));
+
+        Files.writeString(b, "CREEPER  K R IY1 P ER0\n");
+        Files.writeString(directory.resolve("c.dict"), "AXE  AE1 K S\n");
+        Files.writeString(directory.resolve("notes.txt"), "not an overlay");
+        var second = dictionary.reload(directory);
+        assertEquals(List.of("b.dict", "c.dict"), second.rebuilt());
+        assertEquals(List.of(), second.removed());
+        // the unchanged overlay is kept as it was rather than parsed again
+        assertSame(dictionary.layers().get(0), second.dictionary().layers().get(0));
+        assertNotSame(dictionary.layers().get(1), second.dictionary().layers().get(1));
+
+        // with b's DIAMOND gone, the base's is back, and the base's words and compounds are as they were
+        dictionary = second.dictionary();
+        for (var word : List.of("SWORD", "STONE", "DIAMOND", "DIAMONDSWORD", "STONESWORD")) {
+            assertEquals(base.lookup(word), dictionary.lookup(word), word);
+        }
+        assertEquals(pronounced(HIGH, LOW, HIGH), dictionary.lookup("CREEPERAXE"));
+        assertEquals(pronounced(HIGH, LOW, HIGH, HIGH), dictionary.lookup("NETHERITESWORD"));
+        assertEquals(base.size() + 3, dictionary.size());
+        // the overlays are indexed on their own, without the base
+        assertEquals(3, StressIndex.of(dictionary.overlays()).size());
+
+        Files.delete(a);
+        var third = dictionary.reload(directory);
+        assertEquals(List.of(), third.rebuilt());
+        assertEquals(List.of("a.dict"), third.removed());
+        assertEquals(null, third.dictionary().lookup("NETHERITE"));
+        assertEquals(base.lookup("DIAMONDSWORD"), third.dictionary().lookup("DIAMONDSWORD"));
+    }
+}
@@ -0,0 +1,66 @@
+package ca.pfaj.pentameter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedDictionaryTest {
+    static final List<String> CMU = List.of(
+            "AXE  AE1 K S",
+            "CREEPER  K R IY1 P ER0",
+            "PICK  P IH1 K",
+            "PICKAXE  P IH1 K AE2 K S",
+            "RED  R EH1 D",
+            "STONE  S T OW1 N",
+            "STONES  S T OW1 N Z");
+
+    static final List<String> WORDS = List.of("STONE", "STONEPICKAXE", "CREEPERS", "REDSTONE", "STONESTONES",
+            "PICKAX", "ST", "", "XYZ");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void looksUpLikeTheTrie() throws IOException {
+        var parsed = new HashDictionary();
+        for (var line : CMU) {
+            CmuParser.parseLine(parsed, line);
+        }
+        var path = directory.resolve("dict.bin");
+        MappedDictionary.write(path, parsed, 1);
+        var mapped = MappedDictionary.open(path, 1).orElseThrow();
+        var trie = TrieDictionary.copyOf(parsed);
+        for (var word : WORDS) {
+            assertEquals(trie.lookup(word), mapped.lookup(word), word);
+        }
+        // compounds are split rather than just missed by both
+        assertNotNull(mapped.lookup("STONEPICKAXE"));
+        assertNotNull(mapped.lookup("CREEPERS"));
+    }
+
+    @Test
+    void leavesTheChecksumToVerify() throws IOException {
+        var parsed = new HashDictionary();
+        for (var line : CMU) {
+            CmuParser.parseLine(parsed, line);
+        }
+        var path = directory.resolve("dict.bin");
+        MappedDictionary.write(path, parsed, 1);
+        assertTrue(MappedDictionary.open(path, 2).isEmpty());
+        assertTrue(MappedDictionary.open(path, 1).orElseThrow().verify());
+        // damage the last entry's set id, which opening doesn't read
+        var bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+        assertFalse(MappedDictionary.open(path, 1).orElseThrow().verify());
+    }
+}
@@ -0,0 +1,106 @@
+package ca.pfaj.pentameter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the dynamic-programming scanner against the original way of scanning a phrase: trying every combination of
+ * its words' pronounciations.
+ */
+class MeterScannerTest {
+    static final List<String> CMU = List.of(
+            "SHALL  SH AE1 L",
+            "I  AY1",
+            "COMPARE  K AH0 M P EH1 R",
+            "THEE  DH IY1",
+            "TO  T UW1",
+            "A  AH0",
+            "SUMMERS  S AH1 M ER0 Z",
+            "DAY  D EY1",
+            "THOU  DH AW1",
+            "ART  AA1 R T",
+            "MORE  M AO1 R",
+            "LOVELY  L AH1 V L IY0",
+            "AND  AH0 N D",
+            "TEMPERATE  T EH1 M P ER0 AH0 T",
+            "TEMPERATE(1)  T EH1 M P R AH0 T",
+            "RECORD  R EH1 K ER0 D",
+            "RECORD(1)  R IH0 K AO1 R D",
+            "THE  DH AH0",
+            "HAPPY  HH AE1 P IY0",
+            "DEBATE  D IH0 B EY1 T");
+
+    static final List<String> LINES = List.of(
+            "Shall I compare thee to a summer's day?",
+            "Thou art more lovely and more temperate:",
+            "record the record",
+            "the-the temperate day, record happy creeper",
+            "debate the happy record to a lovely day",
+            "happy happy happy",
+            "",
+            " - ");
+
+    static Dictionary dictionary() {
+        var dictionary = new HashDictionary();
+        for (var line : CMU) {
+            CmuParser.parseLine(dictionary, line);
+        }
+        return dictionary;
+    }
+
+    @Test
+    void matchesEveryCombination() {
+        var dictionary = dictionary();
+        for (var line : LINES) {
+            var phrase = new Phrase(line, dictionary);
+            var every = phrase.uniqueProunounciations();
+            var scansion = new Scansion(Phrase.SCANNER.scanAll(phrase.words()));
+
+            assertEquals(every.stream().anyMatch(PronouncedPhrase::isIambic), scansion.isIambic(), line);
+            assertEquals(every.stream().anyMatch(PronouncedPhrase::isIambicPentameter),
+                    scansion.isIambicPentameter(), line);
+            // the original chose pentameter, then iambic, then the fewest incorrect syllables, so always the fewest
+            assertEquals(every.stream().mapToInt(PronouncedPhrase::getNumIncorrectSyllables).min().orElseThrow(),
+                    scansion.getNumIncorrectSyllables(), line);
+            // the chosen pronounciation is one of them, for the same words
+            assertEquals(true, every.stream().anyMatch(option -> option.getStress()
+                    .equals(scansion.pronounciation().getStress())), line);
+        }
+    }
+
+    @Test
+    void findsPentameter() {
+        var scansion = new Phrase("Shall I compare thee to a summer's day?", dictionary()).scansion();
+        assertEquals(true, scansion.isIambicPentameter());
+        assertEquals(0, scansion.getNumIncorrectSyllables());
+    }
+
+    @Test
+    void countsLongLinesTogether() {
+        var phrase = new Phrase("happy ".repeat(MeterScanner.MAX_FEET + 3).strip(), dictionary());
+        var trochaic = Phrase.SCANNER.scanAll(phrase.words()).get(Meter.DEFAULTS.indexOf(Meter.TROCHAIC));
+        assertEquals(MeterScanner.MAX_FEET + 1, trochaic.feet());
+        assertEquals("trochaic more than 8 feet", trochaic.toString());
+        var pentameter = Phrase.SCANNER.scanAll(new Phrase("happy ".repeat(5).strip(), dictionary()).words())
+                .get(Meter.DEFAULTS.indexOf(Meter.TROCHAIC));
+        assertEquals("trochaic pentameter", pentameter.toString());
+    }
+
+    @Test
+    void givesUpOverBudget() {
+        var words = new Phrase("happy ".repeat(1000).strip(), dictionary()).words();
+        // fewer steps than words, so it gives up straight away
+        assertEquals(Optional.empty(), Phrase.SCANNER.scanAll(words, words.size() - 1, Long.MAX_VALUE));
+        // enough for a few words, but not all of them
+        assertEquals(Optional.empty(), Phrase.SCANNER.scanAll(words, 10_000, Long.MAX_VALUE));
+        assertEquals(Scansion.Mode.GREEDY, Phrase.SCANNER.scan(words, new Budget(10_000, 10_000, Long.MAX_VALUE),
+                System.nanoTime()).mode());
+        assertEquals(Scansion.Mode.UNSCANNED, Phrase.SCANNER.scan(words, new Budget(10, Long.MAX_VALUE,
+                Long.MAX_VALUE), System.nanoTime()).mode());
+        assertEquals(Scansion.Mode.FULL, Phrase.SCANNER.scan(words, Budget.UNLIMITED, System.nanoTime()).mode());
+    }
+}
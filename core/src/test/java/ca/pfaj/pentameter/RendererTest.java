@@ -0,0 +1,38 @@
+package ca.pfaj.pentameter;
+
+import net.md_5.bungee.api.ChatColor;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class RendererTest {
+    static PronouncedPhrase phrase() {
+        return new PronouncedPhrase(List.of(
+                new PronouncedWord("brb", new Pronounciation(List.of())),
+                new PronouncedWord("record", new Pronounciation(List.of(Stress.LOW, Stress.HIGH)))));
+    }
+
+    @Test
+    void rendersWordsWithoutSyllablesAsText() {
+        var rendered = Renderer.render(phrase());
+        assertEquals(3, rendered.length);
+        assertEquals("brb", rendered[0].toPlainText());
+        assertEquals("rec", rendered[1].toPlainText());
+        assertEquals("ord", rendered[2].toPlainText());
+    }
+
+    @Test
+    void eachMessageGetsItsOwnComponents() {
+        var first = Renderer.render(phrase());
+        var second = Renderer.render(phrase());
+        for (int i = 0; i < first.length; i++) {
+            assertNotSame(first[i], second[i]);
+        }
+        // changing one message's components leaves the next message alone
+        first[1].setColor(ChatColor.RED);
+        assertEquals(ChatColor.GREEN, Renderer.render(phrase())[1].getColor());
+    }
+}
@@ -0,0 +1,43 @@
+package ca.pfaj.pentameter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RhymeIndexTest {
+    static RhymeIndex index() {
+        var builder = new RhymeIndex.Builder();
+        List.of(";;; a comment",
+                "DEBATE  D IH0 B EY1 T",
+                "DON'T  D OW1 N T",
+                "DONT  D AA1 N T",
+                "LATE  L EY1 T",
+                "RECORD  R EH1 K ER0 D",
+                "RECORD(1)  R IH0 K AO1 R D",
+                "WON'T  W OW1 N T").forEach(builder);
+        return builder.build();
+    }
+
+    @Test
+    void findsWordsWithApostrophesByTheirCleanedText() {
+        var index = index();
+        // chat's words are cleaned, so they're looked up without their apostrophes
+        assertTrue(index.rhymes(Dictionary.cleanWord("don't"), Dictionary.cleanWord("won't")));
+        assertEquals(List.of("DONT", "WONT"), index.rhymesOf("WONT"));
+        assertEquals(RhymeIndex.NOT_FOUND, index.indexOf("WON'T"));
+    }
+
+    @Test
+    void rhymesByTheFirstPronounciation() {
+        var index = index();
+        assertTrue(index.rhymes("LATE", "DEBATE"));
+        assertFalse(index.rhymes("LATE", "LATE"));
+        assertFalse(index.rhymes("LATE", "RECORD"));
+        assertEquals("EH K ER D", index.phonemes(index.key("RECORD")));
+        assertFalse(index.rhymes("LATE", "MISSING"));
+    }
+}
@@ -0,0 +1,62 @@
+package ca.pfaj.pentameter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StressIndexTest {
+    static final List<String> CMU = List.of(
+            "CREEPER  K R IY1 P ER0",
+            "DEBATE  D IH0 B EY1 T",
+            "HAMMER  HH AE1 M ER0",
+            "HAPPEN  HH AE1 P AH0 N",
+            "HAPPY  HH AE1 P IY0",
+            "RECORD  R EH1 K ER0 D",
+            "RECORD(1)  R IH0 K AO1 R D",
+            "SUMMER  S AH1 M ER0");
+    static final long TROCHEE = StressIndex.iambic(Stress.HIGH, 2);
+    static final long IAMB = StressIndex.iambic(Stress.LOW, 2);
+
+    static Dictionary dictionary(List<String> lines) {
+        var dictionary = new HashDictionary();
+        for (var line : lines) {
+            CmuParser.parseLine(dictionary, line);
+        }
+        return dictionary;
+    }
+
+    @Test
+    void findsWordsSpelledAlike() {
+        var index = StressIndex.of(dictionary(CMU));
+        assertEquals(List.of("HAPPEN", "HAPPY", "HAMMER"), index.nearest("HAPPEX", TROCHEE, 3));
+        // a word isn't its own suggestion, and a word with two patterns is found under both
+        assertEquals(List.of("HAPPEN", "HAMMER", "CREEPER", "RECORD"), index.nearest("HAPPY", TROCHEE, 4));
+        assertEquals(List.of("RECORD", "DEBATE"), index.nearest("RECKON", IAMB, 5));
+        // the first and last words with a pattern
+        assertEquals(List.of("CREEPER"), index.nearest("AAA", TROCHEE, 1));
+        assertEquals(List.of("SUMMER"), index.nearest("ZZZ", TROCHEE, 1));
+    }
+
+    @Test
+    void findsNothingWithoutThePattern() {
+        var index = StressIndex.of(dictionary(CMU));
+        assertEquals(List.of(), index.nearest("HAPPY", StressIndex.iambic(Stress.LOW, 3), 3));
+        assertEquals(List.of(), index.nearest("HAPPY", TROCHEE, 0));
+        assertEquals(List.of(), StressIndex.EMPTY.nearest("HAPPY", TROCHEE, 3));
+    }
+
+    @Test
+    void containsEveryWord() {
+        var index = StressIndex.of(dictionary(CMU));
+        assertEquals(7, index.size());
+        assertTrue(index.contains("RECORD"));
+        assertTrue(index.contains(new StringBuilder("HAPPY")));
+        assertFalse(index.contains("HAPP"));
+        assertFalse(index.contains("HAPPYS"));
+        assertFalse(StressIndex.EMPTY.contains("HAPPY"));
+    }
+}
@@ -0,0 +1,80 @@
+package ca.pfaj.pentameter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static ca.pfaj.pentameter.Stress.HIGH;
+import static ca.pfaj.pentameter.Stress.LOW;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StressPredictorTest {
+    // every word has three vowel groups; most are stressed on the first, but those ending in TION on the second
+    static final List<String> CMU = List.of(
+            "ANIMAL  AE1 N AH0 M AH0 L",
+            "BEAUTIFUL  B Y UW1 T AH0 F AH0 L",
+            "CAMERA  K AE1 M ER0 AH0",
+            "CAPITAL  K AE1 P IH0 T AH0 L",
+            "HOSPITAL  HH AA1 S P IH0 T AH0 L",
+            "ATTENTION  AH0 T EH1 N SH AH0 N",
+            "CONVENTION  K AH0 N V EH1 N SH AH0 N",
+            "DETENTION  D IH0 T EH1 N SH AH0 N",
+            "PREVENTION  P R IY0 V EH1 N SH AH0 N");
+
+    static StressPredictor trained() {
+        var dictionary = new HashDictionary();
+        for (var line : CMU) {
+            CmuParser.parseLine(dictionary, line);
+        }
+        return StressPredictor.train(dictionary);
+    }
+
+    static Set<Pronounciation> pronounced(Stress... stress) {
+        return Set.of(new Pronounciation(List.of(stress)));
+    }
+
+    @Test
+    void learnsFromEndings() {
+        var predictor = trained();
+        assertEquals(pronounced(LOW, HIGH, LOW), predictor.predict("GRAVENTION"));
+        assertEquals(pronounced(HIGH, LOW, LOW), predictor.predict("GRAVENTAL"));
+        // CAMERA is the only word ending in A, which isn't enough to go on
+        assertEquals(pronounced(HIGH, LOW, LOW), predictor.predict("ENIGMA"));
+    }
+
+    @Test
+    void keepsOnlyEndingsThatChangeTheGuess() {
+        var predictor = trained();
+        // the guess for any three vowel groups, and for ending in N; TION, ION and ON all guess what N does, so
+        // they're found by shortening the ending until it's N
+        assertEquals(2, predictor.size());
+        assertEquals(pronounced(LOW, HIGH, LOW), predictor.predict("GRAVENSION"));
+        assertEquals(pronounced(LOW, HIGH, LOW), predictor.predict("TELEPHON"));
+    }
+
+    @Test
+    void guessesWithoutTraining() {
+        var empty = StressPredictor.train(new HashDictionary());
+        assertEquals(0, empty.size());
+        // a syllable for each vowel group, stressed from the first
+        assertEquals(pronounced(HIGH, LOW, HIGH), empty.predict("CAMERA"));
+        assertEquals(pronounced(HIGH, LOW), StressPredictor.UNTRAINED.predict("LATE"));
+        // one syllable can go either way, and a word with no vowels is taken as one syllable
+        assertEquals(Dictionary.SINGLE, empty.predict("CAT"));
+        assertEquals(Dictionary.SINGLE, empty.predict("HMM"));
+        assertEquals(Dictionary.SINGLE, empty.predict(""));
+    }
+
+    @Test
+    void toleratesOtherCharacters() {
+        var predictor = trained();
+        // letters that aren't cleaned are no ending that was learned, so the guess is for any three vowel groups
+        assertEquals(pronounced(HIGH, LOW, LOW), predictor.predict("ATTENTION'"));
+        assertEquals(pronounced(HIGH, LOW, LOW), predictor.predict("ATTENTIOÑ"));
+        assertEquals(Dictionary.SINGLE, predictor.predict("!!!"));
+        // Y is a vowel except at the start
+        assertEquals(1, StressPredictor.vowelGroups("YTTRIUM"));
+        assertEquals(1, StressPredictor.vowelGroups("RHYTHM"));
+    }
+}
@@ -0,0 +1,44 @@
+package ca.pfaj.pentameter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static ca.pfaj.pentameter.StressIndexTest.CMU;
+import static ca.pfaj.pentameter.StressIndexTest.TROCHEE;
+import static ca.pfaj.pentameter.StressIndexTest.dictionary;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SubstitutionsTest {
+    static Substitutions substitutions(int count) {
+        // HAPPEN is an iamb in the overlays, which hides it as a trochee in the base
+        var overlays = dictionary(List.of("HAPPEN  HH AH0 P EH1 N", "HAPPO  HH AE1 P OW0"));
+        return new Substitutions(StressIndex.of(dictionary(CMU)), StressIndex.of(overlays), count, Long.MAX_VALUE / 2);
+    }
+
+    @Test
+    void suggestsFromBaseAndOverlays() {
+        var substitutions = substitutions(3);
+        // the overlay's word comes first when it's as alike as the base's
+        assertEquals(List.of("happo", "happy", "hammer"), substitutions.suggest("Happex!", TROCHEE,
+                substitutions.deadline()));
+        assertEquals(List.of("happen", "debate", "record"), substitutions.suggest("happex", StressIndexTest.IAMB,
+                substitutions.deadline()));
+    }
+
+    @Test
+    void remembersSuggestionsPastTheDeadline() {
+        var substitutions = substitutions(3);
+        long passed = System.nanoTime() - 1;
+        assertEquals(List.of(), substitutions.suggest("happex", TROCHEE, passed));
+        var suggested = substitutions.suggest("happex", TROCHEE, substitutions.deadline());
+        assertEquals(suggested, substitutions.suggest("happex", TROCHEE, passed));
+        assertEquals(1, substitutions.cache().size());
+    }
+
+    @Test
+    void suggestsNothingWhenTurnedOff() {
+        assertEquals(List.of(), substitutions(0).suggest("happex", TROCHEE, Long.MAX_VALUE));
+        assertEquals(List.of(), Substitutions.NONE.suggest("happex", TROCHEE, Long.MAX_VALUE));
+    }
+}
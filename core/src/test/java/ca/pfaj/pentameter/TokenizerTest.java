@@ -0,0 +1,97 @@
+package ca.pfaj.pentameter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenizerTest {
+    static final List<String> MESSAGES = List.of(
+            "happy days",
+            "don't stop",
+            "it's   a happy-go-lucky day",
+            "happy--days",
+            "-happy-",
+            "happy ",
+            " happy",
+            " - ",
+            " ",
+            "-",
+            "",
+            "café straße ﬀ",
+            "ŉ ı İ",
+            "emoji 😀 happy",
+            "HAPPY! stop?!",
+            "a-");
+
+    static Dictionary dictionary() {
+        var dictionary = new HashDictionary();
+        for (var word : List.of("HAPPY", "DAYS", "DONT", "STOP", "ITS", "GO", "LUCKY", "DAY", "STRASSE", "FF", "N", "I",
+                "EMOJI")) {
+            dictionary.add(word, Stress.HIGH);
+        }
+        return dictionary;
+    }
+
+    /**
+     * How messages were split before the tokenizer, kept to check the tokenizer splits them the same way. The only
+     * change is that a dash with no space after it no longer throws, which is what "nextSpace != -1" is for.
+     */
+    static List<Word> parseWordsBefore(String phrase, Dictionary dictionary) {
+        List<Word> parsedWords = new LinkedList<>();
+        // deconstruct the string, treating spaces and dashes as joiners
+        int guard = 1000; // prevent infinite loops
+        while (phrase != null && guard-- > 0) {
+            String word; // next word that has been parsed
+            String joiner; // joiner following the next word
+            // check if word ends with a space or a dash, or the end of the phrase
+            int nextSpace = phrase.indexOf(' ');
+            int nextDash = phrase.indexOf('-');
+            if (nextSpace == -1 && nextDash == -1) {
+                // the phrase has only one word left
+                word = phrase;
+                joiner = null;
+                phrase = null;
+            } else if (nextDash == -1 || nextSpace != -1 && nextSpace <= nextDash) {
+                // the next joiner is a space
+                word = phrase.substring(0, nextSpace);
+                joiner = " ";
+                phrase = phrase.substring(nextSpace + 1);
+            } else {
+                // the next joiner is a dash
+                word = phrase.substring(0, nextDash);
+                joiner = "-";
+                phrase = phrase.substring(nextDash + 1);
+            }
+            // clean up the word for dictionary matching - remove non-letters, make uppercase, etc
+            var cleanedWord = Dictionary.cleanWord(word);
+            // get the pronounciation options for this word; if none found, assume it's one syllable
+            var pronounciations = dictionary.getOrDefault(cleanedWord, Dictionary.SINGLE);
+            parsedWords.add(new Word(word, pronounciations));
+            if (joiner != null) {
+                parsedWords.add(new Word(joiner, Dictionary.SILENT));
+            }
+        }
+        return parsedWords;
+    }
+
+    @Test
+    void splitsMessagesAsBefore() {
+        var dictionary = dictionary();
+        for (var message : MESSAGES) {
+            assertEquals(parseWordsBefore(message, dictionary), Phrase.parseWords(message, dictionary), message);
+        }
+    }
+
+    @Test
+    void cleansWordsAsBefore() {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            var cleaned = new StringBuilder();
+            Tokenizer.appendCleaned((char) c, cleaned);
+            assertEquals(Dictionary.cleanWord(String.valueOf((char) c)), cleaned.toString(),
+                    "U+" + Integer.toHexString(c));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ca.pfaj.pentameter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static ca.pfaj.pentameter.Stress.HIGH;
+import static ca.pfaj.pentameter.Stress.LOW;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TrieDictionaryTest {
+    static final List<String> CMU = List.of(
+            "AXE  AE1 K S",
+            "CREEPER  K R IY1 P ER0",
+            "ING  IH1 NG",
+            "PICK  P IH1 K",
+            "PICKAXE  P IH1 K AE2 K S",
+            "RED  R EH1 D",
+            "STONE  S T OW1 N");
+
+    static TrieDictionary dictionary() {
+        var parsed = new HashDictionary();
+        for (var line : CMU) {
+            CmuParser.parseLine(parsed, line);
+        }
+        return TrieDictionary.copyOf(parsed);
+    }
+
+    static Set<Pronounciation> pronounced(Stress... stress) {
+        return Set.of(new Pronounciation(List.of(stress)));
+    }
+
+    @Test
+    void stressesOneSyllableParts() {
+        var dictionary = dictionary();
+        assertEquals(pronounced(HIGH, HIGH), dictionary.lookup("REDSTONE"));
+        assertEquals(pronounced(HIGH, HIGH, HIGH), dictionary.lookup("STONEPICKAXE"));
+        assertEquals(pronounced(HIGH, HIGH, HIGH), dictionary.lookup("STONEREDAXE"));
+        // on their own, they can still go either way
+        assertEquals(Dictionary.SINGLE, dictionary.lookup("STONE"));
+    }
+
+    @Test
+    void endsInSuffixes() {
+        var dictionary = dictionary();
+        assertEquals(pronounced(HIGH, LOW), dictionary.lookup("CREEPERS"));
+        assertEquals(pronounced(HIGH, LOW), dictionary.lookup("PICKER"));
+        assertEquals(Set.of(new Pronounciation(List.of(HIGH)), new Pronounciation(List.of(HIGH, LOW))),
+                dictionary.lookup("PICKED"));
+        // a suffix can't be the whole word
+        assertNull(dictionary.lookup("ERS"));
+    }
+
+    @Test
+    void prefersWordsToSuffixes() {
+        var dictionary = dictionary();
+        // ING is a word as well as a suffix, and the word wins
+        assertEquals(pronounced(HIGH, HIGH), dictionary.lookup("STONEING"));
+        // CREEPER ends in ER, but isn't split into CREEP and ER
+        assertEquals(pronounced(HIGH, HIGH, LOW), dictionary.lookup("STONECREEPER"));
+    }
+}
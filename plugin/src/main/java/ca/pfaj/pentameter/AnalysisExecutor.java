@@ -0,0 +1,157 @@
+package ca.pfaj.pentameter;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs chat analysis off the server's chat threads, so a slow message doesn't hold up anything else. Uses virtual
+ * threads when the server runs on Java 21 or later, and otherwise a fixed pool with a bounded queue; if the queue
+ * fills up, or the executor has been shut down, the chat thread analyses the message itself rather than dropping it.
+ * <p>
+ * Each player's messages are analysed one after another, in the order they were sent, so they're delivered in that
+ * order too. Different players' messages are analysed in parallel.
+ */
+class AnalysisExecutor {
+    private final ExecutorService executor;
+    private final Metrics metrics;
+    private final Pentameter plugin;
+    // the last task queued for each player; a player's next task runs after it
+    private final Map<UUID, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * @param plugin the plugin, for logging
+     * @param threads how many threads to use if virtual threads aren't available
+     * @param queueSize how many messages can wait for a thread if virtual threads aren't available
+     */
+    AnalysisExecutor(Pentameter plugin, int threads, int queueSize) {
+        this.plugin = plugin;
+        this.metrics = plugin.metrics;
+        this.executor = create(threads, queueSize);
+    }
+
+    /**
+     * Make a virtual thread per task executor if this Java has them, or a fixed pool if not
+     * @param threads how many threads the pool has
+     * @param queueSize how many tasks can wait for the pool
+     * @return the executor
+     */
+    static ExecutorService create(int threads, int queueSize) {
+        try {
+            // looked up by reflection so the plugin still builds for, and runs on, Java 17
+            var virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            var factory = new ThreadFactoryBuilder().setNameFormat("Pentameter analysis %d").setDaemon(true).build();
+            // like CallerRunsPolicy, except that once the pool is shut down the task is rejected rather than silently
+            // dropped, the same as virtual threads do
+            RejectedExecutionHandler callerRuns = (task, pool) -> {
+                if (pool.isShutdown()) {
+                    throw new RejectedExecutionException("analysis has stopped");
+                }
+                task.run();
+            };
+            return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueSize), factory, callerRuns);
+        }
+    }
+
+    /**
+     * Queue a player's message to be analysed after any of their earlier messages; can be called from any thread
+     * @param player the player's UUID
+     * @param task the analysis, which hands its result to the broadcaster
+     */
+    void submit(UUID player, Runnable task) {
+        long queued = System.nanoTime();
+        pending.incrementAndGet();
+        Runnable timed = () -> {
+            pending.decrementAndGet();
+            metrics.time(Metrics.Stage.QUEUE, queued);
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // keep going, so the player's later messages still get through
+                plugin.warn("Exception when analysing chat: " + e);
+            }
+        };
+        // swap in a placeholder for this task first, and only then hand it to the executor, which with a full queue
+        // runs it right here; it mustn't run while the map is locked
+        var next = new CompletableFuture<Void>();
+        var tail = tails.put(player, next);
+        // forget the player once they have nothing queued
+        next.whenComplete((result, e) -> tails.remove(player, next));
+        CompletableFuture<Void> run;
+        try {
+            // a task rejected earlier still lets the player's later ones run
+            run = tail == null ? CompletableFuture.runAsync(timed, executor)
+                    : tail.exceptionally(e -> null).thenRunAsync(timed, executor);
+        } catch (RejectedExecutionException e) {
+            rejected(timed, next, e);
+            return;
+        }
+        run.whenComplete((result, e) -> {
+            // a dependent task the executor rejected fails with the rejection wrapped in a CompletionException
+            if (e != null && (e instanceof RejectedExecutionException
+                    || e.getCause() instanceof RejectedExecutionException)) {
+                rejected(timed, next, e);
+            } else {
+                next.complete(null);
+            }
+        });
+    }
+
+    /**
+     * Analyse a message the executor wouldn't take, because it's been shut down, on the calling thread rather than
+     * losing it
+     */
+    private void rejected(Runnable timed, CompletableFuture<Void> next, Throwable e) {
+        timed.run();
+        next.completeExceptionally(e);
+    }
+
+    /**
+     * Check whether the executor has stopped taking messages
+     * @return whether it has been shut down
+     */
+    boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    /**
+     * Get how many messages are waiting to be analysed
+     * @return the number of messages
+     */
+    int pending() {
+        return pending.get();
+    }
+
+    /**
+     * Wait a little while for the messages already queued to be analysed, then stop
+     */
+    void shutdown() {
+        // each player's last task finishes after all of their others
+        var last = CompletableFuture.allOf(tails.values().toArray(new CompletableFuture[0]));
+        try {
+            last.get(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            plugin.warn("Gave up waiting for " + pending() + " chat messages to be analysed");
+        }
+        executor.shutdown();
+    }
+}
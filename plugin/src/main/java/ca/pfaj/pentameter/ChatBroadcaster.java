@@ -0,0 +1,128 @@
+package ca.pfaj.pentameter;
+
+import net.md_5.bungee.api.chat.BaseComponent;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Delivers analysed chat messages from the main thread. Chat threads queue messages without blocking, and a task
+ * that runs every tick sends everything queued since the last tick in one go, up to a limit so that a flood of chat
+ * can't take over the tick; anything over the limit waits for the next tick.
+ */
+class ChatBroadcaster implements Runnable {
+    /**
+     * A chat message waiting to be delivered.
+     * @param speaker the player who sent it
+     * @param message the coloured message, with the speaker's name
+     * @param log the plain message to log in the console
+     * @param scansion the message's scansion, which decides the speaker's status effect
+     * @param verse how the speaker's poem stands with this message added, or null if they aren't writing one
+     */
+    record Delivery(Player speaker, BaseComponent[] message, String log, Scansion scansion,
+                    VerseSession.Progress verse) {
+    }
+
+    private final Queue<Delivery> queue = new ConcurrentLinkedQueue<>();
+    private final int maxPerTick;
+    private final Metrics metrics;
+
+    /**
+     * @param maxPerTick the most messages to deliver in one tick
+     * @param metrics where to record how long each tick's delivery takes
+     */
+    ChatBroadcaster(int maxPerTick, Metrics metrics) {
+        this.maxPerTick = Math.max(1, maxPerTick);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Queue a message for delivery on the next tick; can be called from any thread
+     * @param delivery the message
+     */
+    void submit(Delivery delivery) {
+        queue.add(delivery);
+    }
+
+    @Override
+    public void run() {
+        var batch = new ArrayList<Delivery>();
+        Delivery delivery;
+        while (batch.size() < maxPerTick && (delivery = queue.poll()) != null) {
+            batch.add(delivery);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        // send coloured messages to each player, and log in the server console
+        for (var player : Bukkit.getServer().getOnlinePlayers()) {
+            var spigot = player.spigot();
+            for (var queued : batch) {
+                spigot.sendMessage(queued.message());
+            }
+        }
+        for (var queued : batch) {
+            Bukkit.getLogger().info(queued.log());
+            if (queued.speaker().isOnline()) {
+                reward(queued.speaker(), queued.scansion());
+                if (queued.verse() != null) {
+                    queued.speaker().sendMessage(queued.verse().describe());
+                    reward(queued.speaker(), queued.verse());
+                }
+            }
+        }
+        metrics.time(Metrics.Stage.BROADCAST, start);
+    }
+
+    /**
+     * Apply the status effect a message earns its speaker; has to be done on the main thread
+     * @param player the speaker
+     * @param scansion the message's scansion
+     */
+    static void reward(Player player, Scansion scansion) {
+        var fit = scansion.bestFit();
+        if (scansion.isIambicPentameter()) {
+            player.addPotionEffect(new PotionEffect(PotionEffectType.SATURATION, 3*20, 1));
+        } else if (fit.isExact() && fit.feet() >= 4 && fit.feet() <= 6) {
+            // a whole line in another meter, from tetrameter to hexameter
+            player.addPotionEffect(new PotionEffect(PotionEffectType.SATURATION, 2*20, 0));
+        } else if (scansion.isIambic() || fit.isExact()) {
+            player.addPotionEffect(new PotionEffect(PotionEffectType.SATURATION, 1, 0));
+        } else {
+            player.addPotionEffect(new PotionEffect(PotionEffectType.HUNGER, 10*20, 0));
+        }
+    }
+
+    /**
+     * Apply the status effect a finished poem earns its poet, if every line was iambic pentameter; longer poems earn
+     * longer effects, and poems that follow their rhyme scheme earn twice as long. Has to be done on the main thread
+     * @param player the poet
+     * @param verse how the poem stands
+     */
+    static void reward(Player player, VerseSession.Progress verse) {
+        if (verse.perfect()) {
+            int ticks = verse.form().lines * 5*20 * (verse.rhymesThroughout() ? 2 : 1);
+            player.addPotionEffect(new PotionEffect(PotionEffectType.SATURATION, ticks, 1));
+            player.addPotionEffect(new PotionEffect(PotionEffectType.REGENERATION, ticks, 0));
+        }
+    }
+
+    /**
+     * Deliver everything queued, however much there is
+     */
+    void flush() {
+        while (!queue.isEmpty()) {
+            run();
+        }
+    }
+
+    int queued() {
+        return queue.size();
+    }
+}
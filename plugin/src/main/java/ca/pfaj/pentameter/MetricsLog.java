@@ -0,0 +1,143 @@
+package ca.pfaj.pentameter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Appends a row of metrics to a CSV file every time it runs, so that slow ticks can be matched up with what chat was
+ * doing at the time. Each row covers the time since the row before it. When the file gets too big it's moved aside,
+ * to metrics.1.csv, metrics.2.csv and so on, keeping only the newest few.
+ */
+class MetricsLog implements Runnable {
+    private final Pentameter plugin;
+    private final Path path;
+    private final long maxBytes;
+    private final int keep;
+    private final Map<Metrics.Stage, Metrics.Snapshot> lastLatencies = new EnumMap<>(Metrics.Stage.class);
+    private Metrics.Snapshot lastCombinations;
+    private long lastMessages, lastWords, lastFallbacks;
+    private final Map<Scansion.Mode, Long> lastScans = new EnumMap<>(Scansion.Mode.class);
+
+    /**
+     * @param plugin the plugin, whose metrics are logged
+     * @param path the file to write
+     * @param maxBytes how big the file can get before it's moved aside
+     * @param keep how many old files to keep
+     */
+    MetricsLog(Pentameter plugin, Path path, long maxBytes, int keep) {
+        this.plugin = plugin;
+        this.path = path;
+        this.maxBytes = maxBytes;
+        this.keep = Math.max(0, keep);
+        var metrics = plugin.metrics;
+        for (var stage : Metrics.Stage.values()) {
+            lastLatencies.put(stage, metrics.latency(stage).snapshot());
+        }
+        lastCombinations = metrics.combinations.snapshot();
+        lastMessages = metrics.messages.sum();
+        lastWords = metrics.words.sum();
+        lastFallbacks = metrics.fallbacks.sum();
+        for (var mode : Scansion.Mode.values()) {
+            lastScans.put(mode, metrics.scans(mode));
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (Files.exists(path) && Files.size(path) >= maxBytes) {
+                roll();
+            }
+            var lines = new StringBuilder();
+            if (!Files.exists(path)) {
+                lines.append(header()).append('\n');
+            }
+            lines.append(row()).append('\n');
+            Files.writeString(path, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            plugin.warn("IOException when writing metrics to " + path.getFileName());
+        }
+    }
+
+    private void roll() throws IOException {
+        if (keep == 0) {
+            Files.delete(path);
+            return;
+        }
+        Files.deleteIfExists(rolled(keep));
+        for (int i = keep - 1; i >= 1; i--) {
+            if (Files.exists(rolled(i))) {
+                Files.move(rolled(i), rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(path, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path rolled(int generation) {
+        var name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return path.resolveSibling(name.substring(0, dot) + "." + generation + name.substring(dot));
+    }
+
+    private static String header() {
+        var header = new StringJoiner(",");
+        header.add("time").add("messages").add("words").add("unknown_words");
+        for (var mode : Scansion.Mode.values()) {
+            header.add(mode.name().toLowerCase(Locale.ROOT) + "_scans");
+        }
+        for (var stage : Metrics.Stage.values()) {
+            var name = stage.name().toLowerCase(Locale.ROOT);
+            header.add(name + "_count").add(name + "_mean_us").add(name + "_p99_us");
+        }
+        header.add("combinations_p99").add("dictionary_words").add("dictionary_heap_bytes").add("heap_used_bytes")
+                .add("pending_messages").add("queued_messages");
+        return header.toString();
+    }
+
+    private String row() {
+        var metrics = plugin.metrics;
+        var row = new StringJoiner(",");
+        long messages = metrics.messages.sum();
+        long words = metrics.words.sum();
+        long fallbacks = metrics.fallbacks.sum();
+        row.add(Instant.now().toString())
+                .add(Long.toString(messages - lastMessages))
+                .add(Long.toString(words - lastWords))
+                .add(Long.toString(fallbacks - lastFallbacks));
+        lastMessages = messages;
+        lastWords = words;
+        lastFallbacks = fallbacks;
+        for (var mode : Scansion.Mode.values()) {
+            long scans = metrics.scans(mode);
+            row.add(Long.toString(scans - lastScans.put(mode, scans)));
+        }
+        for (var stage : Metrics.Stage.values()) {
+            var latency = metrics.latency(stage).snapshot();
+            var interval = latency.since(lastLatencies.put(stage, latency));
+            row.add(Long.toString(interval.count()))
+                    .add(String.format(Locale.ROOT, "%.1f", interval.mean() / 1000))
+                    .add(String.format(Locale.ROOT, "%.1f", interval.percentile(99) / 1000.0));
+        }
+        var combinations = metrics.combinations.snapshot();
+        row.add(Long.toString(combinations.since(lastCombinations).percentile(99)));
+        lastCombinations = combinations;
+        var dictionary = plugin.analyser.get().dictionary();
+        var runtime = Runtime.getRuntime();
+        row.add(Integer.toString(dictionary.size()))
+                .add(Long.toString(dictionary.heapFootprint()))
+                .add(Long.toString(runtime.totalMemory() - runtime.freeMemory()))
+                .add(Integer.toString(plugin.analysis.pending()))
+                .add(Integer.toString(plugin.broadcaster.queued()));
+        return row.toString();
+    }
+}
@@ -0,0 +1,437 @@
+package ca.pfaj.pentameter;
+
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.ComponentBuilder;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.PluginLogger;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.event.player.AsyncPlayerChatEvent;
+
+import java.io.*;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class Pentameter extends JavaPlugin {
+    String DICT_FILENAME = "cmudict-0.7b";
+    String DICT_URL = "https://svn.code.sf.net/p/cmusphinx/code/trunk/cmudict/cmudict-0.7b";
+    String SNAPSHOT_SUFFIX = ".bin";
+    String INDEX_SUFFIX = ".idx";
+    String OVERLAY_DIRECTORY = "overlays";
+    String MINECRAFT_OVERLAY = "minecraft.dict";
+    PluginLogger logger = new PluginLogger(this);
+    // kept across dictionary reloads, so it covers the whole time the plugin has been running
+    Metrics metrics = new Metrics();
+    // the CMU dictionary with the overlays on top, once it's loaded; replaced, never changed, when overlays reload
+    AtomicReference<LayeredDictionary> dictionary = new AtomicReference<>();
+    // published once the dictionary is loaded; chat is handled with an empty dictionary until then
+    AtomicReference<Analyser> analyser = new AtomicReference<>(new Analyser(new HashDictionary(),
+            StressPredictor.UNTRAINED, metrics, Budget.UNLIMITED));
+    // guesses how words that aren't in the dictionary are pronounced, once it's learned how from the dictionary
+    AtomicReference<StressPredictor> predictor = new AtomicReference<>(StressPredictor.UNTRAINED);
+    // how much work to spend scanning each message, from the config
+    Budget budget = Budget.UNLIMITED;
+    // which words rhyme, for verse; nothing rhymes until it's loaded
+    AtomicReference<RhymeIndex> rhymes = new AtomicReference<>(RhymeIndex.EMPTY);
+    // the base dictionary's words by stress pattern, built once it's loaded; the overlays get an index of their own
+    AtomicReference<StressIndex> baseIndex = new AtomicReference<>(StressIndex.EMPTY);
+    // words to suggest in place of words that don't fit the meter; rebuilt along with the dictionary
+    AtomicReference<Substitutions> substitutions = new AtomicReference<>(Substitutions.NONE);
+    ChatBroadcaster broadcaster;
+    AnalysisExecutor analysis;
+    VerseSessions verses;
+
+    /**
+     * The dictionary and the indexes worked out from it
+     * @param dictionary the dictionary, looked up in place in its snapshot or held in a trie
+     * @param indexes which words rhyme, how spellings are pronounced, and the words by stress pattern
+     * @param checked whether the dictionary's compressed copy and snapshot were checked while they were read; if not,
+     *                they should be checked in the background
+     */
+    record Loaded(Dictionary dictionary, IndexSnapshot indexes, boolean checked) {
+    }
+
+    /**
+     * Read the CMU Pronouncing Dictionary from its snapshots or compressed copy, or if there isn't a good copy,
+     * download it, parsing it as it arrives and keeping a compressed copy and snapshots for next time
+     * @param cache the compressed copy
+     * @param url URL to get the dictionary from
+     * @param useSnapshots whether to use the snapshots, rather than rebuilding them from the copy
+     * @return the dictionary and its indexes, or null if it couldn't be read or downloaded
+     */
+    Loaded readDictionary(DictionaryCache cache, String url, boolean useSnapshots) {
+        if (cache.exists()) {
+            try {
+                return readCachedDictionary(cache, useSnapshots);
+            } catch (IOException | UncheckedIOException e) {
+                warn("CMU Pronouncing Dictionary copy is damaged (" + e.getMessage() + "), downloading it again");
+            }
+        }
+        info("CMU Pronouncing Dictionary not found, downloading...");
+        try {
+            var connection = openDictionary(url);
+            var parsed = new HashDictionary();
+            var rhymeIndex = new RhymeIndex.Builder();
+            DictionaryCache.Result result;
+            try (var in = connection.getInputStream()) {
+                result = cache.fill(in, connection.getContentLengthLong(), line -> {
+                    CmuParser.parseLine(parsed, line);
+                    rhymeIndex.accept(line);
+                }, () -> parsed.size() > 0);
+            }
+            info("CMU Pronouncing Dictionary read, " + result.bytes() / 1024 + " KiB with SHA-256 " + result.sha256());
+            try {
+                cache.recordSha256(result);
+            } catch (IOException e) {
+                warn("Couldn't record the dictionary's SHA-256 in " + cache.recordedSha256Path() + " ("
+                        + e.getMessage() + ")");
+            }
+            return buildSnapshots(parsed, rhymeIndex.build(), result.checksum());
+        } catch (MalformedURLException e) {
+            warn("CMU Pronouncing Dictionary URL is invalid");
+        } catch (IOException | UncheckedIOException e) {
+            warn("Couldn't download CMU Pronouncing Dictionary (" + e.getMessage() + ")");
+        }
+        return null;
+    }
+
+    /**
+     * Open a connection to the dictionary; any URL Java can open will do, including file: URLs
+     * @param url URL to get the dictionary from
+     * @return the connection, not yet connected
+     * @throws IOException if the URL is invalid
+     */
+    URLConnection openDictionary(String url) throws IOException {
+        var connection = new URL(url).openConnection();
+        connection.setConnectTimeout(10_000);
+        connection.setReadTimeout(10_000);
+        return connection;
+    }
+
+    /**
+     * Read the dictionary and its indexes from their snapshots if there are up to date ones, without reading the
+     * compressed copy beyond its trailer. Otherwise read the copy, parsing the dictionary if need be, and build the
+     * indexes and snapshots from it.
+     * @param cache the compressed copy
+     * @param useSnapshots whether to use the snapshots, rather than rebuilding them from the copy
+     * @return the dictionary and its indexes
+     * @throws IOException if the copy can't be read or is damaged
+     */
+    Loaded readCachedDictionary(DictionaryCache cache, boolean useSnapshots) throws IOException {
+        // the snapshots are chosen by the checksum the copy records; they aren't checked against the whole copy here
+        long checksum = cache.recordedChecksum();
+        Optional<MappedDictionary> mapped = Optional.empty();
+        Optional<IndexSnapshot> indexes = Optional.empty();
+        if (useSnapshots) {
+            try {
+                mapped = MappedDictionary.open(snapshotPath(SNAPSHOT_SUFFIX), checksum);
+                indexes = IndexSnapshot.read(snapshotPath(INDEX_SUFFIX), checksum);
+            } catch (IOException e) {
+                warn("IOException when reading CMU Pronouncing Dictionary snapshots, rebuilding them");
+                e.printStackTrace();
+            }
+        }
+        if (mapped.isPresent() && indexes.isPresent()) {
+            return new Loaded(mapped.get(), indexes.get(), false);
+        }
+        var parsed = mapped.isPresent() ? null : new HashDictionary();
+        var rhymeIndex = new RhymeIndex.Builder();
+        var result = cache.read(line -> {
+            if (parsed != null) {
+                CmuParser.parseLine(parsed, line);
+            }
+            rhymeIndex.accept(line);
+        });
+        if (parsed == null) {
+            // reading the whole copy has just checked it; the snapshot is checked before the indexes are built on it
+            if (!mapped.get().verify()) {
+                warn("CMU Pronouncing Dictionary snapshot is damaged, rebuilding it");
+                return readCachedDictionary(cache, false);
+            }
+            var built = IndexSnapshot.build(mapped.get(), rhymeIndex.build());
+            writeIndexes(built, result.checksum());
+            return new Loaded(mapped.get(), built, true);
+        }
+        if (parsed.size() == 0) {
+            throw new IOException("dictionary has no words");
+        }
+        return buildSnapshots(parsed, rhymeIndex.build(), result.checksum());
+    }
+
+    /**
+     * Put a freshly parsed dictionary in a trie, work out its indexes, and write snapshots of both, so that next time
+     * it doesn't have to be parsed or indexed
+     * @param parsed the dictionary
+     * @param rhymes which words in it rhyme
+     * @param checksum the checksum of the text it was parsed from
+     * @return the dictionary and its indexes
+     */
+    Loaded buildSnapshots(HashDictionary parsed, RhymeIndex rhymes, long checksum) {
+        var indexes = IndexSnapshot.build(parsed, rhymes);
+        try {
+            info("Building CMU Pronouncing Dictionary snapshot...");
+            MappedDictionary.write(snapshotPath(SNAPSHOT_SUFFIX), parsed, checksum);
+        } catch (IOException e) {
+            warn("IOException when writing CMU Pronouncing Dictionary snapshot");
+            e.printStackTrace();
+        }
+        writeIndexes(indexes, checksum);
+        // a freshly parsed dictionary is held in a trie, which like a snapshot can split compounds like "redstone"
+        return new Loaded(TrieDictionary.copyOf(parsed), indexes, true);
+    }
+
+    /**
+     * Write a snapshot of the dictionary's indexes, so that next time they don't have to be built
+     * @param indexes the indexes
+     * @param checksum the checksum of the text they were built from
+     */
+    void writeIndexes(IndexSnapshot indexes, long checksum) {
+        try {
+            indexes.write(snapshotPath(INDEX_SUFFIX), checksum);
+        } catch (IOException e) {
+            warn("IOException when writing CMU Pronouncing Dictionary index snapshot");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @param suffix {@link #SNAPSHOT_SUFFIX} or {@link #INDEX_SUFFIX}
+     * @return where the snapshot is kept
+     */
+    Path snapshotPath(String suffix) {
+        return new File(getDataFolder(), DICT_FILENAME + suffix).toPath();
+    }
+
+    /**
+     * Read the budget for scanning each message from the config
+     * @return the budget
+     */
+    Budget readBudget() {
+        var config = getConfig();
+        return new Budget(config.getInt("analysis.budget.max-tokens", 200),
+                config.getLong("analysis.budget.max-work", 1_000_000),
+                config.getLong("analysis.budget.max-millis", 20) * 1_000_000);
+    }
+
+    /**
+     * Read the overlays again and publish the resulting dictionary; only new and changed overlays are parsed. Chat
+     * carries on with the old dictionary until the new one is ready. Reloads happen one at a time, so call this off
+     * the main thread.
+     * @return a description of what changed, or null if the dictionary isn't loaded yet
+     */
+    synchronized String reloadOverlays() {
+        var current = dictionary.get();
+        if (current == null) {
+            return null;
+        }
+        try {
+            var directory = new File(getDataFolder(), OVERLAY_DIRECTORY).toPath();
+            Files.createDirectories(directory);
+            var reload = current.reload(directory);
+            dictionary.set(reload.dictionary());
+            analyser.set(new Analyser(reload.dictionary(), predictor.get(), metrics, budget));
+            // only the overlays are indexed again; the base dictionary's index doesn't change
+            var index = StressIndex.of(reload.dictionary().overlays());
+            substitutions.set(new Substitutions(baseIndex.get(), index,
+                    getConfig().getInt("analysis.suggestions.count", 3),
+                    getConfig().getLong("analysis.suggestions.max-millis", 2) * 1_000_000));
+            return String.format("Dictionary has %d words; %d overlays, rebuilt %s, removed %s; %d overlay words in "
+                    + "%d stress patterns using %d KiB of heap", reload.dictionary().size(),
+                    reload.dictionary().layers().size(), reload.rebuilt(), reload.removed(), index.size(),
+                    index.patterns(), index.heapFootprint() / 1024);
+        } catch (IOException | UncheckedIOException e) {
+            warn("IOException when reading dictionary overlays, keeping the old ones");
+            e.printStackTrace();
+            return "Couldn't read the overlays, see the console";
+        }
+    }
+
+    @Override
+    public void onEnable() {
+        saveDefaultConfig();
+        // our own dictionary of Minecraft words, which server owners can change or add to
+        if (!new File(getDataFolder(), OVERLAY_DIRECTORY + "/" + MINECRAFT_OVERLAY).exists()) {
+            saveResource(OVERLAY_DIRECTORY + "/" + MINECRAFT_OVERLAY, false);
+        }
+        budget = readBudget();
+        analyser.set(new Analyser(new HashDictionary(), predictor.get(), metrics, budget));
+
+        // deliver chat once a tick
+        broadcaster = new ChatBroadcaster(getConfig().getInt("broadcast.max-messages-per-tick", 20), metrics);
+        getServer().getScheduler().runTaskTimer(this, broadcaster, 1, 1);
+
+        // analyse chat on threads of our own, rather than the server's chat threads
+        int threads = getConfig().getInt("analysis.threads", 0);
+        analysis = new AnalysisExecutor(this,
+                threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+                getConfig().getInt("analysis.queue-size", 1000));
+
+        // write metrics to a CSV file every so often, if asked to
+        if (getConfig().getBoolean("metrics.csv.enabled", false)) {
+            long interval = Math.max(1, getConfig().getLong("metrics.csv.interval-seconds", 60)) * 20;
+            var log = new MetricsLog(this, new File(getDataFolder(), "metrics.csv").toPath(),
+                    getConfig().getLong("metrics.csv.max-bytes", 1_048_576), getConfig().getInt("metrics.csv.keep", 5));
+            getServer().getScheduler().runTaskTimerAsynchronously(this, log, interval, interval);
+        }
+
+        // poems being written a line at a time
+        verses = new VerseSessions(getConfig().getLong("verse.max-sessions", 1000),
+                Duration.ofMinutes(getConfig().getLong("verse.idle-minutes", 10)));
+
+        // register chat listener straight away; until the dictionary is loaded, every word is treated as unknown
+        this.getServer().getPluginManager().registerEvents(new ChatListener(this), this);
+        Objects.requireNonNull(getCommand("pentameter")).setExecutor(new PentameterCommand(this));
+        Objects.requireNonNull(getCommand("verse")).setExecutor(new VerseCommand(this));
+
+        // download and load the dictionary in the background, so the server doesn't wait for it
+        getServer().getScheduler().runTaskAsynchronously(this, () -> loadDictionary(true));
+    }
+
+    /**
+     * Load the dictionary and its indexes and publish them, then if they were read from snapshots without being
+     * checked, check the snapshot and the compressed copy, loading again without the snapshots if either is damaged.
+     * Call this off the main thread.
+     * @param useSnapshots whether to use the snapshots, rather than rebuilding them from the compressed copy
+     */
+    void loadDictionary(boolean useSnapshots) {
+        long start = System.nanoTime();
+        // read the CMU Pronouncing dictionary, downloading it if need be
+        var cache = new DictionaryCache(new File(getDataFolder(), DICT_FILENAME + DictionaryCache.SUFFIX).toPath(),
+                getConfig().getString("dictionary.sha256", ""));
+        var read = readDictionary(cache, getConfig().getString("dictionary.url", DICT_URL), useSnapshots);
+        if (read == null) {
+            warn("Couldn't read CMU Pronouncing Dictionary, disabling plugin");
+            disable();
+            return;
+        }
+        var loaded = read.dictionary();
+        info("CMU Pronouncing Dictionary loaded " + loaded.size() + " words in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms, using " + loaded.heapFootprint() / 1024
+                + " KiB of heap");
+
+        // the phonemes the dictionary throws away, kept to tell which words rhyme
+        var rhymeIndex = read.indexes().rhymes();
+        rhymes.set(rhymeIndex);
+        info("Rhyme index has " + rhymeIndex.size() + " words with " + rhymeIndex.keys()
+                + " rhymes, using " + rhymeIndex.heapFootprint() / 1024 + " KiB of heap");
+
+        // how words are spelled, to guess how unknown ones like players' names are pronounced
+        var trained = read.indexes().predictor();
+        predictor.set(trained);
+        info("Learned " + trained.size() + " spellings, using " + trained.heapFootprint() / 1024 + " KiB of heap");
+
+        // the dictionary's words by stress pattern, to suggest ones that fit the meter
+        var index = read.indexes().stress();
+        baseIndex.set(index);
+        info("Indexed " + index.size() + " words by " + index.patterns() + " stress patterns, using "
+                + index.heapFootprint() / 1024 + " KiB of heap");
+
+        // chat can use the dictionary straight away, even if the overlays can't be read
+        var base = new LayeredDictionary(loaded, List.of());
+        analyser.set(new Analyser(base, trained, metrics, budget));
+        dictionary.set(base);
+        // combine the dictionary with the overlays, like our own dictionary of Minecraft words
+        info(reloadOverlays());
+
+        if (!read.checked()) {
+            // chat is already being handled, so reading every byte of the copy and the snapshot doesn't hold it up
+            long checkStart = System.nanoTime();
+            try {
+                cache.read(line -> {
+                });
+                if (loaded instanceof MappedDictionary mapped && !mapped.verify()) {
+                    throw new IOException("snapshot doesn't match its checksum");
+                }
+                info("Checked CMU Pronouncing Dictionary copy and snapshot in "
+                        + (System.nanoTime() - checkStart) / 1_000_000 + " ms");
+            } catch (IOException | UncheckedIOException e) {
+                warn("CMU Pronouncing Dictionary copy or snapshot is damaged (" + e.getMessage()
+                        + "), loading it again");
+                loadDictionary(false);
+            }
+        }
+    }
+
+    @Override
+    public void onDisable() {
+        // finish analysing what's been said, then deliver anything still queued, since the broadcast task won't run
+        // again
+        if (analysis != null) {
+            analysis.shutdown();
+        }
+        if (broadcaster != null) {
+            broadcaster.flush();
+        }
+    }
+
+    /**
+     * Disable the plugin; can be called from any thread
+     */
+    void disable() {
+        getServer().getScheduler().runTask(this, () -> getServer().getPluginManager().disablePlugin(this));
+    }
+
+    void log(Level level, String msg) {
+        logger.log(new LogRecord(level, msg));
+    }
+
+    void warn(String msg) {
+        log(Level.WARNING, msg);
+    }
+
+    void info(String msg) {
+        log(Level.INFO, msg);
+    }
+
+    void debug(String msg) {
+        log(Level.FINE, msg);
+    }
+}
+
+class ChatListener implements Listener {
+    Pentameter plugin;
+
+    public ChatListener(Pentameter plugin) {
+        super();
+        this.plugin = plugin;
+    }
+
+    @EventHandler
+    public void onPlayerJoin(AsyncPlayerChatEvent event) {
+        // async means a player sent it, as opposed to a plugin speaking for them
+        // once the plugin is shutting down, chat goes through as it is, rather than waiting on analysis that won't come
+        if (event.isAsynchronous() && !plugin.analysis.isShutdown()) {
+            // cancel the chat event; the message is sent once it's been analysed
+            event.setCancelled(true);
+            var player = event.getPlayer();
+            var msg = event.getMessage();
+            // add the speaker's name, since it doesn't get send automatically when sending per-player messages
+            var playerName_ = "<" + player.getDisplayName() + "> ";
+            plugin.analysis.submit(player.getUniqueId(), () -> {
+                // scan once, and use the same result for the colours and the status effects
+                var scansion = plugin.analyser.get().scan(msg);
+                // if the player is writing a poem, this is its next line
+                var verse = plugin.verses.add(player.getUniqueId(), scansion, plugin.rhymes.get());
+                long start = System.nanoTime();
+                var coloured = scansion.colour(plugin.substitutions.get());
+                plugin.metrics.time(Metrics.Stage.RENDER, start);
+                var playerName = new ComponentBuilder(playerName_).create();
+                // combine the speaker's name with the coloured message (not the cleanest way to combine arrays, maybe)
+                List<BaseComponent> message_ = new ArrayList<>(List.of(playerName));
+                message_.addAll(List.of(coloured));
+                BaseComponent[] message = message_.toArray(new BaseComponent[]{});
+                // send coloured message to each player, log it, and apply status effects on the next tick
+                plugin.broadcaster.submit(new ChatBroadcaster.Delivery(player, message, playerName_ + msg, scansion,
+                        verse));
+            });
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package ca.pfaj.pentameter;
+
+import com.google.common.cache.Cache;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+
+import java.util.Locale;
+
+/**
+ * The /pentameter admin command.
+ */
+class PentameterCommand implements CommandExecutor {
+    Pentameter plugin;
+
+    public PentameterCommand(Pentameter plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length == 1 && args[0].equalsIgnoreCase("cache")) {
+            var analyser = plugin.analyser.get();
+            sender.sendMessage(describe("Phrase cache", analyser.phraseCache()));
+            sender.sendMessage(describe("Word cache", analyser.wordCache()));
+            sender.sendMessage(describe("Rendered word cache", Renderer.wordCache()));
+            sender.sendMessage(describe("Suggestion cache", plugin.substitutions.get().cache()));
+            return true;
+        }
+        if (args.length == 1 && args[0].equalsIgnoreCase("stats")) {
+            var metrics = plugin.metrics;
+            for (var stage : Metrics.Stage.values()) {
+                sender.sendMessage(describe(stage, metrics.latency(stage).snapshot()));
+            }
+            long messages = metrics.messages.sum();
+            long words = metrics.words.sum();
+            long fallbacks = metrics.fallbacks.sum();
+            var combinations = metrics.combinations.snapshot();
+            sender.sendMessage(String.format("Messages: %d, words looked up: %d, unknown words: %d (%.1f%%)",
+                    messages, words, fallbacks, words == 0 ? 0 : 100.0 * fallbacks / words));
+            sender.sendMessage(String.format("Scanned fully: %d, greedily: %d, not scanned: %d",
+                    metrics.scans(Scansion.Mode.FULL), metrics.scans(Scansion.Mode.GREEDY),
+                    metrics.scans(Scansion.Mode.UNSCANNED)));
+            sender.sendMessage(String.format("Pronounciation combinations per message: p50 <= %d, p99 <= %d, max %d",
+                    combinations.percentile(50), combinations.percentile(99), combinations.max()));
+            var dictionary = plugin.analyser.get().dictionary();
+            var runtime = Runtime.getRuntime();
+            sender.sendMessage(String.format("Dictionary: %d words, %s of heap; server heap: %d of %d MiB",
+                    dictionary.size(), footprint(dictionary.heapFootprint()),
+                    (runtime.totalMemory() - runtime.freeMemory()) >> 20, runtime.maxMemory() >> 20));
+            sender.sendMessage(String.format("Messages waiting to be analysed: %d, to be delivered: %d; poems being "
+                    + "written: %d", plugin.analysis.pending(), plugin.broadcaster.queued(), plugin.verses.size()));
+            return true;
+        }
+        if (args.length == 1 && args[0].equalsIgnoreCase("reload")) {
+            sender.sendMessage("Reloading dictionary overlays...");
+            var scheduler = plugin.getServer().getScheduler();
+            scheduler.runTaskAsynchronously(plugin, () -> {
+                var result = plugin.reloadOverlays();
+                scheduler.runTask(plugin, () -> sender.sendMessage(result != null ? result
+                        : "The dictionary hasn't loaded yet"));
+            });
+            return true;
+        }
+        return false;
+    }
+
+    static String describe(String name, Cache<?, ?> cache) {
+        var stats = cache.stats();
+        return String.format("%s: %d entries, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                name, cache.size(), stats.hitCount(), stats.missCount(), stats.hitRate() * 100, stats.evictionCount());
+    }
+
+    static String describe(Metrics.Stage stage, Metrics.Snapshot latency) {
+        // percentiles are the tops of power-of-two buckets, hence "<="
+        return String.format("%s: %d times, mean %.1f us, p50 <= %.1f us, p99 <= %.1f us, max %.1f us",
+                stage.name().toLowerCase(Locale.ROOT), latency.count(), latency.mean() / 1000,
+                latency.percentile(50) / 1000.0, latency.percentile(99) / 1000.0, latency.max() / 1000.0);
+    }
+
+    static String footprint(long bytes) {
+        return bytes < 0 ? "unknown amount" : bytes / 1024 + " KiB";
+    }
+}
@@ -0,0 +1,45 @@
+package ca.pfaj.pentameter;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.Locale;
+
+/**
+ * The /verse command, which starts or stops writing a poem in chat, one message per line.
+ */
+class VerseCommand implements CommandExecutor {
+    Pentameter plugin;
+
+    public VerseCommand(Pentameter plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (!(sender instanceof Player player)) {
+            sender.sendMessage("Only players can write verse");
+            return true;
+        }
+        if (args.length != 1) {
+            return false;
+        }
+        if (args[0].equalsIgnoreCase("stop")) {
+            var session = plugin.verses.stop(player.getUniqueId());
+            sender.sendMessage(session == null ? "You aren't writing a poem"
+                    : "Stopped writing your " + session.form().displayName().toLowerCase(Locale.ROOT));
+            return true;
+        }
+        for (var form : VerseSession.Form.values()) {
+            if (args[0].equalsIgnoreCase(form.name())) {
+                plugin.verses.start(player.getUniqueId(), form);
+                sender.sendMessage(String.format("Writing a %s: each chat message is a line, %d lines of iambic "
+                        + "pentameter in all", form.displayName().toLowerCase(Locale.ROOT), form.lines));
+                return true;
+            }
+        }
+        return false;
+    }
+}